@@ -0,0 +1,152 @@
+package com.manojkhannakm.textmining.a.one;
+
+import edu.northwestern.at.utils.CharUtils;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.regex.Pattern;
+
+/**
+ * Calls the {@link CharUtils} pattern helpers from several threads at once
+ * <p>
+ * Generates random strings over hyphens, non-breaking hyphens, asterisks, periods, apostrophes and letters, works
+ * out the expected answers single-threaded with the regexes the helpers replaced, and then has every thread check
+ * isAllHyphens, isAllAsterisks, isPossessiveAsterisks, isPossessiveDashes, isAllPeriods and isAWord on all of them
+ * for a number of rounds. Prints the throughput and the number of wrong answers for each thread count given as
+ * arguments (1, 2, 4 and 8 by default).
+ *
+ * @author Manoj Khanna
+ */
+
+public class CharUtilsBenchmark {
+
+    private static final int STRING_COUNT = 100000, ROUNDS = 20;
+    private static final char[] ALPHABET = {'-', CharUtils.NONBREAKING_HYPHEN, '*', '.', '\'', 's', 'S', 'a'};
+    private static final Pattern[] PATTERNS = {
+            Pattern.compile("^([-\u2011]{1,})$"),
+            Pattern.compile("^(\\*{1,})$"),
+            Pattern.compile("^(\\*{1,})'(s|S)$"),
+            Pattern.compile("^([-\u2011]{2,})'(s|S)$"),
+            Pattern.compile("^(\\.{1,})$"),
+            Pattern.compile("([\\w]+|([\\w]+-[\\w]+)+|[\\w]*'[\\w]*)")
+    };
+
+    public static void main(String[] args) throws InterruptedException {
+        int[] threadCounts = {1, 2, 4, 8};
+        if (args.length > 0) {
+            threadCounts = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                threadCounts[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        Random random = new Random(42);
+        String[] strings = new String[STRING_COUNT];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = randomString(random);
+        }
+
+        int[] expected = new int[strings.length];
+        for (int i = 0; i < strings.length; i++) {
+            String s = strings[i];
+            for (int j = 0; j < PATTERNS.length; j++) {
+                boolean match = j < PATTERNS.length - 1 ? PATTERNS[j].matcher(s).matches()
+                        : !s.equals("'") && PATTERNS[j].matcher(s).matches();
+                if (match) {
+                    expected[i] |= 1 << j;
+                }
+            }
+        }
+
+        for (int threadCount : threadCounts) {
+            long[] errorCounts = new long[threadCount];
+            CountDownLatch startLatch = new CountDownLatch(1);
+            Thread[] threads = new Thread[threadCount];
+            for (int t = 0; t < threadCount; t++) {
+                int id = t;
+                threads[t] = new Thread(() -> {
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+
+                    for (int round = 0; round < ROUNDS; round++) {
+                        for (int i = 0; i < strings.length; i++) {
+                            if (check(strings[i]) != expected[i]) {
+                                errorCounts[id]++;
+                            }
+                        }
+                    }
+                });
+                threads[t].start();
+            }
+
+            long startTime = System.nanoTime();
+            startLatch.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            double time = (System.nanoTime() - startTime) / 1.0e9;
+
+            long errorCount = 0;
+            for (long count : errorCounts) {
+                errorCount += count;
+            }
+
+            long callCount = (long) threadCount * ROUNDS * strings.length * PATTERNS.length;
+            System.out.format("%2d threads: %d calls in %.2fs, %.1f M calls/s, %.1f M calls/s per thread, %d wrong\n",
+                    threadCount, callCount, time, callCount / time / 1.0e6, callCount / time / 1.0e6 / threadCount,
+                    errorCount);
+        }
+    }
+
+    private static int check(String s) {
+        int result = 0;
+        if (CharUtils.isAllHyphens(s)) {
+            result |= 1;
+        }
+        if (CharUtils.isAllAsterisks(s)) {
+            result |= 1 << 1;
+        }
+        if (CharUtils.isPossessiveAsterisks(s)) {
+            result |= 1 << 2;
+        }
+        if (CharUtils.isPossessiveDashes(s)) {
+            result |= 1 << 3;
+        }
+        if (CharUtils.isAllPeriods(s)) {
+            result |= 1 << 4;
+        }
+        if (CharUtils.isAWord(s)) {
+            result |= 1 << 5;
+        }
+        return result;
+    }
+
+    /**
+     * Random string of up to 8 characters, half of them runs of one character with an optional 's so that every
+     * helper sees matches as well as near misses
+     */
+    private static String randomString(Random random) {
+        StringBuilder stringBuilder = new StringBuilder();
+        if (random.nextBoolean()) {
+            char c = ALPHABET[random.nextInt(5)];
+            int length = 1 + random.nextInt(6);
+            for (int i = 0; i < length; i++) {
+                stringBuilder.append(random.nextInt(4) == 0 && c == '-' ? CharUtils.NONBREAKING_HYPHEN : c);
+            }
+            if (random.nextBoolean()) {
+                stringBuilder.append('\'').append(random.nextBoolean() ? 's' : 'S');
+            }
+        } else {
+            int length = random.nextInt(9);
+            for (int i = 0; i < length; i++) {
+                stringBuilder.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+            }
+        }
+        return stringBuilder.toString();
+    }
+
+}
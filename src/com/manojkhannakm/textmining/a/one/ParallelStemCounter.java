@@ -0,0 +1,262 @@
+package com.manojkhannakm.textmining.a.one;
+
+import com.manojkhannakm.textmining.util.StopWordMatcher;
+import edu.northwestern.at.utils.corpuslinguistics.stemmer.CachingLancasterStemmer;
+import edu.northwestern.at.utils.corpuslinguistics.stemmer.LancasterStemmer;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork-join stem word counter
+ * <p>
+ * Splits the input file into line-aligned chunks which are memory-mapped and processed by separate workers,
+ * each with its own {@link Tokenizer} and {@link WordCounter}s. The workers share one
+ * {@link CachingLancasterStemmer}, so a word seen in several chunks is only stemmed once. Partial counts are
+ * merged pairwise as the tasks join. The filtered words of every chunk go to a temporary file and those files
+ * are appended to the output in chunk order, so the output matches the sequential run. Like the sequential run,
+ * counting ends at the first empty line of the input.
+ *
+ * @author Manoj Khanna
+ */
+
+class ParallelStemCounter {
+
+    private static final long MAX_CHUNK_SIZE = 256L * 1024L * 1024L;
+
+    private StopWordMatcher stopWordMatcher;
+    private int parallelism;
+    private LancasterStemmer stemmer = new CachingLancasterStemmer();
+
+    public ParallelStemCounter(StopWordMatcher stopWordMatcher, int parallelism) {
+        this.stopWordMatcher = stopWordMatcher;
+        this.parallelism = parallelism;
+    }
+
+    public Result count(String inputFileName, String outputFileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(inputFileName), StandardOpenOption.READ)) {
+            long[] bounds = split(channel);
+
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            Result result;
+            try {
+                result = pool.invoke(new CountTask(channel, bounds, 0, bounds.length - 1));
+            } finally {
+                pool.shutdown();
+            }
+
+            try (FileChannel outputChannel = FileChannel.open(Paths.get(outputFileName), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (File file : result.fileList) {
+                    try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                        long position = 0, size = fileChannel.size();
+                        while (position < size) {
+                            position += fileChannel.transferTo(position, size - position, outputChannel);
+                        }
+                    }
+                }
+            } finally {
+                result.deleteFiles();
+            }
+
+            return result;
+        }
+    }
+
+    private long[] split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int chunkCount = (int) Math.max(parallelism * 4L, (size + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+
+        long[] bounds = new long[chunkCount + 1];
+        int n = 1;
+        ByteBuffer byteBuffer = ByteBuffer.allocate(4096);
+        for (int i = 1; i < chunkCount; i++) {
+            long position = Math.max(size / chunkCount * i, bounds[n - 1]);
+
+            find:
+            while (position < size) {
+                byteBuffer.clear();
+                int count = channel.read(byteBuffer, position);
+                for (int j = 0; j < count; j++) {
+                    if (byteBuffer.get(j) == '\n') {
+                        position += j + 1;
+                        break find;
+                    }
+                }
+
+                position += count;
+            }
+
+            if (position > bounds[n - 1] && position < size) {
+                bounds[n++] = position;
+            }
+        }
+        bounds[n++] = size;
+
+        long[] chunkBounds = new long[n];
+        System.arraycopy(bounds, 0, chunkBounds, 0, n);
+        return chunkBounds;
+    }
+
+    public static class Result {
+
+        private long wordCount, stopWordCount;
+        private WordCounter stemWordCounter;
+        private ArrayList<File> fileList = new ArrayList<>();
+        private boolean emptyLineReached;
+
+        private Result merge(Result result) {
+            if (emptyLineReached) {
+                result.deleteFiles();
+                return this;
+            }
+
+            wordCount += result.wordCount;
+            stopWordCount += result.stopWordCount;
+            stemWordCounter.addAll(result.stemWordCounter);
+            fileList.addAll(result.fileList);
+            emptyLineReached = result.emptyLineReached;
+            return this;
+        }
+
+        private void deleteFiles() {
+            for (File file : fileList) {
+                file.delete();
+            }
+        }
+
+        public long getWordCount() {
+            return wordCount;
+        }
+
+        public long getStopWordCount() {
+            return stopWordCount;
+        }
+
+        public WordCounter getStemWordCounter() {
+            return stemWordCounter;
+        }
+
+    }
+
+    private class CountTask extends RecursiveTask<Result> {
+
+        private static final long serialVersionUID = 1L;
+
+        private FileChannel channel;
+        private long[] bounds;
+        private int from, to;
+
+        public CountTask(FileChannel channel, long[] bounds, int from, int to) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Result compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                CountTask leftTask = new CountTask(channel, bounds, from, mid),
+                        rightTask = new CountTask(channel, bounds, mid, to);
+                leftTask.fork();
+
+                Result rightResult;
+                try {
+                    rightResult = rightTask.compute();
+                } catch (RuntimeException | Error e) {
+                    try {
+                        leftTask.join().deleteFiles();
+                    } catch (RuntimeException | Error suppressed) {
+                        e.addSuppressed(suppressed);
+                    }
+                    throw e;
+                }
+
+                Result leftResult;
+                try {
+                    leftResult = leftTask.join();
+                } catch (RuntimeException | Error e) {
+                    rightResult.deleteFiles();
+                    throw e;
+                }
+                return leftResult.merge(rightResult);
+            }
+
+            try {
+                return count(bounds[from], bounds[to]);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private Result count(long start, long end) throws IOException {
+            Result result = new Result();
+            File file = File.createTempFile("stem-word-frequency", ".txt");
+            file.deleteOnExit();
+            result.fileList.add(file);
+
+            try {
+                WordCounter wordCounter = new WordCounter();
+                InputStream inputStream = new ByteBufferInputStream(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+                try (Reader reader = new InputStreamReader(inputStream);
+                     BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(file))) {
+                    Tokenizer tokenizer = new Tokenizer(reader);
+                    result.wordCount = tokenizer.tokenize((chars, offset, length) -> {
+                        if (stopWordMatcher.contains(chars, offset, length)) {
+                            result.stopWordCount++;
+                            return;
+                        }
+
+                        bufferedWriter.write(chars, offset, length);
+                        bufferedWriter.write(' ');
+
+                        wordCounter.add(chars, offset, length);
+                    });
+                    result.emptyLineReached = tokenizer.isEmptyLineReached();
+                }
+
+                result.stemWordCounter = StemWordFrequency.countStemWords(wordCounter, stemmer);
+                return result;
+            } catch (IOException | RuntimeException | Error e) {
+                file.delete();
+                throw e;
+            }
+        }
+
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private ByteBuffer byteBuffer;
+
+        public ByteBufferInputStream(ByteBuffer byteBuffer) {
+            this.byteBuffer = byteBuffer;
+        }
+
+        @Override
+        public int read() {
+            return byteBuffer.hasRemaining() ? byteBuffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!byteBuffer.hasRemaining()) {
+                return -1;
+            }
+
+            length = Math.min(length, byteBuffer.remaining());
+            byteBuffer.get(bytes, offset, length);
+            return length;
+        }
+
+    }
+
+}
@@ -1,10 +1,11 @@
 package com.manojkhannakm.textmining.a.one;
 
+import com.manojkhannakm.textmining.util.StopWordMatcher;
 import edu.northwestern.at.utils.corpuslinguistics.stemmer.LancasterStemmer;
 
 import java.io.*;
+import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 
 /**
  * @author Manoj Khanna
@@ -13,148 +14,79 @@ import java.util.TreeMap;
 public class StemWordFrequency {
 
     public static void main(String[] args) throws IOException {
-        System.out.println("Reading input.txt...");
-        long startTime = System.currentTimeMillis();
-
-//        BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(System.in));
-        BufferedReader bufferedReader = new BufferedReader(new FileReader("res/a1/small_input.txt"));
-        String line;
-        StringBuilder stringBuilder = new StringBuilder();
-        while ((line = bufferedReader.readLine()) != null && !line.isEmpty()) {
-            stringBuilder.append(line);
-        }
-        bufferedReader.close();
-
-        String[] words = stringBuilder.toString().toLowerCase().split("[^A-Za-z]+");
-        System.out.format("Read %d words in %.2fs\n", words.length, (System.currentTimeMillis() - startTime) / 1000.0f);
-
-        System.out.println("");
-
-        bufferedReader = new BufferedReader(new FileReader("res/stop_words.txt"));
-        Trie stopWordTrie = new Trie();
-        while ((line = bufferedReader.readLine()) != null) {
-            stopWordTrie.add(line);
-        }
-        bufferedReader.close();
-        stopWordTrie.print();
+        StopWordMatcher stopWordMatcher = StopWordMatcher.load("res/stop_words.txt");
+        stopWordMatcher.print();
 
         System.out.println("");
 
-        System.out.println("Removing stop words...");
-        startTime = System.currentTimeMillis();
+        String inputFileName = args.length > 0 ? args[0] : "res/a1/small_input.txt";
+        int parallelism = args.length > 1 ? Integer.parseInt(args[1]) : 1;
 
-        int stopWordCount = 0;
-        for (int i = 0; i < words.length; i++) {
-            if (stopWordTrie.contains(words[i])) {
-                words[i] = null;
-                stopWordCount++;
-            }
-        }
+        System.out.println("Counting stem words in input.txt...");
+        long startTime = System.currentTimeMillis();
 
-        System.out.format("Removed %d stop words in %.2fs\n", stopWordCount, (System.currentTimeMillis() - startTime) / 1000.0f);
+        long wordCount, stopWordCount;
+        WordCounter stemWordCounter;
+        if (parallelism > 1) {
+            ParallelStemCounter.Result result = new ParallelStemCounter(stopWordMatcher, parallelism)
+                    .count(inputFileName, "res/a1/output.txt");
+            wordCount = result.getWordCount();
+            stopWordCount = result.getStopWordCount();
+            stemWordCounter = result.getStemWordCounter();
+        } else {
+//            BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(System.in));
+            BufferedReader bufferedReader = new BufferedReader(new FileReader(inputFileName));
+            BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter("res/a1/output.txt"));
+
+            WordCounter wordCounter = new WordCounter();
+            long[] stopWordCounts = new long[1];
+
+            wordCount = new Tokenizer(bufferedReader).tokenize((chars, offset, length) -> {
+                if (stopWordMatcher.contains(chars, offset, length)) {
+                    stopWordCounts[0]++;
+                    return;
+                }
 
-        System.out.println("");
+                bufferedWriter.write(chars, offset, length);
+                bufferedWriter.write(' ');
 
-        System.out.println("Writing output...");
+                wordCounter.add(chars, offset, length);
+            });
+            bufferedReader.close();
+            bufferedWriter.close();
 
-        BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter("res/a1/output.txt"));
-        for (String word : words) {
-            if (word != null) {
-                bufferedWriter.write(word + " ");
-            }
+            stopWordCount = stopWordCounts[0];
+            stemWordCounter = countStemWords(wordCounter, new LancasterStemmer());
         }
-        bufferedWriter.close();
-
-        System.out.println("");
 
-        System.out.println("Finding stem words...");
+        System.out.format("Read %d words, removed %d stop words and counted stem words using %d threads in %.2fs\n", wordCount, stopWordCount, parallelism, (System.currentTimeMillis() - startTime) / 1000.0f);
 
-        LancasterStemmer stemmer = new LancasterStemmer();
-        TreeMap<String, Integer> stemWordMap = new TreeMap<>();
-        for (String word : words) {
-            if (word != null) {
-                String stemWord = stemmer.stem(word);
-                Integer stemWordCount = stemWordMap.get(stemWord);
-                stemWordMap.put(stemWord, stemWordCount == null ? 1 : stemWordCount + 1);
-            }
-        }
+        System.out.println("");
 
-        for (Map.Entry<String, Integer> entry : stemWordMap.entrySet()) {
+        List<Map.Entry<String, Integer>> stemWordList = stemWordCounter.sortedEntries();
+        for (Map.Entry<String, Integer> entry : stemWordList) {
             System.out.println(entry.getKey() + " -> " + entry.getValue());
         }
 
-        System.out.println("Found " + stemWordMap.size() + " stem words");
+        System.out.println("Found " + stemWordList.size() + " stem words");
     }
 
-    private static class Trie {
-
-        private Node rootNode = new Node('\0');
-
-        public void add(String word) {
-            Node node = rootNode;
-            for (int i = 0; i < word.length(); i++) {
-                char c = word.charAt(i);
-                Node childNode = node.childNodeMap.get(c);
-                if (childNode == null) {
-                    childNode = new Node(c);
-                    node.childNodeMap.put(c, childNode);
-                }
-
-                node = childNode;
-            }
-
-            node.word = true;
-        }
-
-        public boolean contains(String word) {
-            Node node = rootNode;
-            for (int i = 0; i < word.length(); i++) {
-                Node childNode = node.childNodeMap.get(word.charAt(i));
-                if (childNode == null) {
-                    return false;
-                }
-
-                node = childNode;
-            }
-
-            return node.word;
-        }
-
-        public void print() {
-            System.out.println("\\0");
-
-            for (Node node : rootNode.childNodeMap.values()) {
-                node.print(1, new char[999]);
-            }
-        }
-
-        private class Node {
-
-            private char c;
-            private boolean word;
-            private TreeMap<Character, Node> childNodeMap = new TreeMap<>();
-
-            public Node(char c) {
-                this.c = c;
-            }
-
-            private void print(int level, char[] chars) {
-                chars[level - 1] = c;
+    static WordCounter countStemWords(WordCounter wordCounter, LancasterStemmer stemmer) {
+        String[] words = new String[wordCounter.size()];
+        int[] counts = new int[words.length],
+                n = new int[1];
+        wordCounter.forEach((word, count) -> {
+            words[n[0]] = new String(word);
+            counts[n[0]++] = count;
+        });
 
-                System.out.format("%" + level + "s", "");
-                System.out.print(c);
-                if (word) {
-                    System.out.print(" -> " + new String(chars, 0, level));
-                }
-                System.out.println("");
-
-                for (Node node : childNodeMap.values()) {
-                    node.print(level + 1, chars);
-                }
-            }
+        stemmer.stemAll(words, words);
 
+        WordCounter stemWordCounter = new WordCounter();
+        for (int i = 0; i < words.length; i++) {
+            stemWordCounter.add(words[i], counts[i]);
         }
-
+        return stemWordCounter;
     }
 
 }
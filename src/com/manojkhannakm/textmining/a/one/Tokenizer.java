@@ -0,0 +1,111 @@
+package com.manojkhannakm.textmining.a.one;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streaming word tokenizer
+ * <p>
+ * Reads the input through a fixed-size char buffer, lower-cases A-Z letters in place and hands every run of
+ * letters to a {@link Listener} as an (offset, length) view into that buffer, so no String is created per word
+ * and the full text is never held in memory. A view is only valid until the listener returns. Line breaks
+ * separate words like any other non-letter and the input ends at the first empty line.
+ *
+ * @author Manoj Khanna
+ */
+
+class Tokenizer {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private Reader reader;
+    private char[] buffer;
+    private boolean emptyLineReached;
+
+    public Tokenizer(Reader reader) {
+        this(reader, BUFFER_SIZE);
+    }
+
+    public Tokenizer(Reader reader, int bufferSize) {
+        this.reader = reader;
+        buffer = new char[bufferSize];
+    }
+
+    public long tokenize(Listener listener) throws IOException {
+        long wordCount = 0;
+        int length = 0, wordStart = -1;
+        boolean emptyLine = true;
+
+        int n;
+        read:
+        while ((n = reader.read(buffer, length, buffer.length - length)) != -1) {
+            int end = length + n;
+            for (int i = length; i < end; i++) {
+                char c = buffer[i];
+                if (c >= 'A' && c <= 'Z') {
+                    c += 'a' - 'A';
+                    buffer[i] = c;
+                }
+
+                if (c >= 'a' && c <= 'z') {
+                    if (wordStart < 0) {
+                        wordStart = i;
+                    }
+
+                    emptyLine = false;
+                    continue;
+                }
+
+                if (wordStart >= 0) {
+                    listener.onWord(buffer, wordStart, i - wordStart);
+                    wordCount++;
+                    wordStart = -1;
+                }
+
+                if (c == '\n') {
+                    if (emptyLine) {
+                        emptyLineReached = true;
+                        break read;
+                    }
+
+                    emptyLine = true;
+                } else if (c != '\r') {
+                    emptyLine = false;
+                }
+            }
+
+            if (wordStart < 0) {
+                length = 0;
+                continue;
+            }
+
+            length = end - wordStart;
+            if (length == buffer.length) {
+                char[] chars = new char[buffer.length * 2];
+                System.arraycopy(buffer, 0, chars, 0, length);
+                buffer = chars;
+            } else {
+                System.arraycopy(buffer, wordStart, buffer, 0, length);
+            }
+            wordStart = 0;
+        }
+
+        if (wordStart >= 0) {
+            listener.onWord(buffer, 0, length);
+            wordCount++;
+        }
+
+        return wordCount;
+    }
+
+    public boolean isEmptyLineReached() {
+        return emptyLineReached;
+    }
+
+    public interface Listener {
+
+        void onWord(char[] chars, int offset, int length) throws IOException;
+
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.manojkhannakm.textmining.a.one;
+
+import java.io.*;
+
+/**
+ * Compares {@link Tokenizer} against the old toLowerCase().split("[^A-Za-z]+") path on generated corpora
+ * <p>
+ * The corpus is made by repeating the non-empty lines of res/b1/large_input.txt up to each size given in MB as
+ * arguments (10, 100 and 1000 by default). The regex path needs the whole corpus in memory and is reported as
+ * failed when it runs out of heap.
+ *
+ * @author Manoj Khanna
+ */
+
+public class TokenizerBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        BufferedReader bufferedReader = new BufferedReader(new FileReader("res/b1/large_input.txt"));
+        String line;
+        StringBuilder stringBuilder = new StringBuilder();
+        while ((line = bufferedReader.readLine()) != null) {
+            if (!line.isEmpty()) {
+                stringBuilder.append(line).append('\n');
+            }
+        }
+        bufferedReader.close();
+        String seed = stringBuilder.toString();
+
+        int[] sizes = {10, 100, 1000};
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        for (int size : sizes) {
+            long charCount = size * 1024L * 1024L;
+
+            System.out.format("%d MB\n", size);
+
+            long[] checksum = new long[1];
+            long startTime = System.currentTimeMillis();
+            long wordCount = new Tokenizer(new RepeatingReader(seed, charCount))
+                    .tokenize((chars, offset, length) -> checksum[0] += length);
+            System.out.format("  Tokenizer  %10d words in %.2fs\n", wordCount, (System.currentTimeMillis() - startTime) / 1000.0f);
+
+            try {
+                stringBuilder = new StringBuilder((int) charCount);
+                while (stringBuilder.length() + seed.length() <= charCount) {
+                    stringBuilder.append(seed);
+                }
+                stringBuilder.append(seed, 0, (int) (charCount - stringBuilder.length()));
+                String s = stringBuilder.toString();
+                stringBuilder = null;
+
+                startTime = System.currentTimeMillis();
+                String[] words = s.toLowerCase().split("[^A-Za-z]+");
+                System.out.format("  Regex      %10d words in %.2fs\n", words.length, (System.currentTimeMillis() - startTime) / 1000.0f);
+            } catch (OutOfMemoryError e) {
+                stringBuilder = null;
+                System.out.println("  Regex      out of memory");
+            }
+
+            System.out.println("");
+        }
+    }
+
+    private static class RepeatingReader extends Reader {
+
+        private String s;
+        private long remaining;
+        private int position;
+
+        public RepeatingReader(String s, long length) {
+            this.s = s;
+            remaining = length;
+        }
+
+        @Override
+        public int read(char[] chars, int offset, int length) {
+            if (remaining == 0) {
+                return -1;
+            }
+
+            int n = (int) Math.min(Math.min(length, remaining), s.length() - position);
+            s.getChars(position, position + n, chars, offset);
+            position = (position + n) % s.length();
+            remaining -= n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+}
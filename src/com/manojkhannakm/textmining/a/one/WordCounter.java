@@ -0,0 +1,143 @@
+package com.manojkhannakm.textmining.a.one;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Open addressing word to count map keyed by (offset, length) char views
+ * <p>
+ * A word is copied into its own char array only the first time it is seen, so counting a token stream creates
+ * one array per distinct word instead of one String per token.
+ *
+ * @author Manoj Khanna
+ */
+
+class WordCounter {
+
+    private char[][] words;
+    private int[] hashes, counts;
+    private int size;
+
+    public WordCounter() {
+        this(1024);
+    }
+
+    public WordCounter(int capacity) {
+        int n = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        words = new char[n][];
+        hashes = new int[n];
+        counts = new int[n];
+    }
+
+    public void add(char[] chars, int offset, int length) {
+        add(chars, offset, length, 1);
+    }
+
+    public void add(char[] chars, int offset, int length, int count) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+
+        int mask = words.length - 1,
+                i = mix(hash) & mask;
+        while (words[i] != null) {
+            if (hashes[i] == hash && equals(words[i], chars, offset, length)) {
+                counts[i] += count;
+                return;
+            }
+
+            i = (i + 1) & mask;
+        }
+
+        char[] word = new char[length];
+        System.arraycopy(chars, offset, word, 0, length);
+        words[i] = word;
+        hashes[i] = hash;
+        counts[i] = count;
+
+        if (++size * 2 > words.length) {
+            resize();
+        }
+    }
+
+    public void add(String word, int count) {
+        add(word.toCharArray(), 0, word.length(), count);
+    }
+
+    public void addAll(WordCounter wordCounter) {
+        wordCounter.forEach((word, count) -> add(word, 0, word.length, count));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(Visitor visitor) {
+        for (int i = 0; i < words.length; i++) {
+            if (words[i] != null) {
+                visitor.visit(words[i], counts[i]);
+            }
+        }
+    }
+
+    public List<Map.Entry<String, Integer>> sortedEntries() {
+        ArrayList<Map.Entry<String, Integer>> entryList = new ArrayList<>(size);
+        forEach((word, count) -> entryList.add(new AbstractMap.SimpleImmutableEntry<>(new String(word), count)));
+        entryList.sort(Map.Entry.comparingByKey());
+        return entryList;
+    }
+
+    private void resize() {
+        char[][] oldWords = words;
+        int[] oldHashes = hashes,
+                oldCounts = counts;
+
+        int n = oldWords.length * 2,
+                mask = n - 1;
+        words = new char[n][];
+        hashes = new int[n];
+        counts = new int[n];
+
+        for (int j = 0; j < oldWords.length; j++) {
+            if (oldWords[j] != null) {
+                int i = mix(oldHashes[j]) & mask;
+                while (words[i] != null) {
+                    i = (i + 1) & mask;
+                }
+
+                words[i] = oldWords[j];
+                hashes[i] = oldHashes[j];
+                counts[i] = oldCounts[j];
+            }
+        }
+    }
+
+    private static int mix(int hash) {
+        hash *= 0x9e3779b9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equals(char[] word, char[] chars, int offset, int length) {
+        if (word.length != length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (word[i] != chars[offset + i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public interface Visitor {
+
+        void visit(char[] word, int count);
+
+    }
+
+}
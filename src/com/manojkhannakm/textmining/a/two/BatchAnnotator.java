@@ -0,0 +1,127 @@
+package com.manojkhannakm.textmining.a.two;
+
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Annotates many documents with one shared CoreNLP pipeline on a fixed pool of threads
+ * <p>
+ * Documents are grouped into batches. Each batch is annotated by one worker, document by document, with
+ * {@link StanfordCoreNLP#annotate(Annotation)}, so the pipeline and its models are loaded once and shared. At most
+ * {@code threads * 2} batches are in flight. The caller takes the batches back in input order, waiting on the
+ * oldest one, so the results stream out in order while later batches are still being annotated. The number of
+ * batches in flight each time one is taken back is the queue depth: when it stays near its limit, annotation is
+ * the bottleneck, and when it stays near zero, the caller is.
+ *
+ * @author Manoj Khanna
+ */
+
+class BatchAnnotator {
+
+    private final StanfordCoreNLP pipeline;
+    private final int threads, batchSize;
+
+    private int documentCount, batchCount, maxQueueDepth;
+    private long queueDepthSum, time;
+
+    public BatchAnnotator(StanfordCoreNLP pipeline, int threads, int batchSize) {
+        if (threads < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Threads and batch size must be positive: " + threads + ", " + batchSize);
+        }
+
+        this.pipeline = pipeline;
+        this.threads = threads;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Annotates every text and hands the annotations to the callback in input order, on the calling thread
+     */
+    public void annotate(Iterable<String> texts, Callback callback) throws IOException {
+        long startTime = System.nanoTime();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ArrayDeque<Future<ArrayList<Annotation>>> queue = new ArrayDeque<>();
+        try {
+            Iterator<String> iterator = texts.iterator();
+            while (iterator.hasNext() || !queue.isEmpty()) {
+                while (iterator.hasNext() && queue.size() < threads * 2) {
+                    ArrayList<String> batch = new ArrayList<>(batchSize);
+                    while (iterator.hasNext() && batch.size() < batchSize) {
+                        batch.add(iterator.next());
+                    }
+                    queue.add(executor.submit(() -> annotate(batch)));
+                }
+
+                queueDepthSum += queue.size();
+                maxQueueDepth = Math.max(maxQueueDepth, queue.size());
+                batchCount++;
+
+                for (Annotation annotation : take(queue.poll())) {
+                    callback.onAnnotation(annotation);
+                    documentCount++;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            time += System.nanoTime() - startTime;
+        }
+    }
+
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    public double getDocumentsPerSecond() {
+        return time > 0 ? documentCount / (time / 1.0e9) : 0.0;
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    public double getAverageQueueDepth() {
+        return batchCount > 0 ? (double) queueDepthSum / batchCount : 0.0;
+    }
+
+    private ArrayList<Annotation> annotate(ArrayList<String> batch) {
+        ArrayList<Annotation> annotationList = new ArrayList<>(batch.size());
+        for (String text : batch) {
+            Annotation annotation = new Annotation(text);
+            pipeline.annotate(annotation);
+            annotationList.add(annotation);
+        }
+        return annotationList;
+    }
+
+    private static ArrayList<Annotation> take(Future<ArrayList<Annotation>> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while annotating", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new IOException("Annotation failed", e.getCause());
+        }
+    }
+
+    public interface Callback {
+
+        void onAnnotation(Annotation annotation) throws IOException;
+
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.manojkhannakm.textmining.a.two;
+
+import java.util.Arrays;
+
+/**
+ * Dense row-major matrix
+ * <p>
+ * Entry (i, j) lives at {@code data[i * columnCount + j]} of one flat array.
+ *
+ * @author Manoj Khanna
+ */
+
+class DenseMatrix implements MatrixOperator {
+
+    private final int rowCount, columnCount;
+    private final double[] data;
+
+    public DenseMatrix(int rowCount, int columnCount) {
+        this(rowCount, columnCount, new double[rowCount * columnCount]);
+    }
+
+    public DenseMatrix(int rowCount, int columnCount, double[] data) {
+        if (data.length != rowCount * columnCount) {
+            throw new IllegalArgumentException("Data length must be " + rowCount * columnCount + ": " + data.length);
+        }
+
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.data = data;
+    }
+
+    public static DenseMatrix of(double[][] a) {
+        int rowCount = a.length,
+                columnCount = rowCount > 0 ? a[0].length : 0;
+        double[] data = new double[rowCount * columnCount];
+        for (int i = 0; i < rowCount; i++) {
+            System.arraycopy(a[i], 0, data, i * columnCount, columnCount);
+        }
+        return new DenseMatrix(rowCount, columnCount, data);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public double get(int row, int column) {
+        return data[row * columnCount + column];
+    }
+
+    public void set(int row, int column, double value) {
+        data[row * columnCount + column] = value;
+    }
+
+    public double[] getData() {
+        return data;
+    }
+
+    @Override
+    public void multiply(double[] x, int width, double[] y) {
+        MatrixKernels.multiply(rowCount, columnCount, width, data, x, y);
+    }
+
+    @Override
+    public void transposeMultiply(double[] x, int width, double[] y) {
+        MatrixKernels.multiplyTransposed(rowCount, columnCount, width, data, x, y);
+    }
+
+    public double[][] toArray() {
+        double[][] a = new double[rowCount][];
+        for (int i = 0; i < rowCount; i++) {
+            a[i] = Arrays.copyOfRange(data, i * columnCount, (i + 1) * columnCount);
+        }
+        return a;
+    }
+
+}
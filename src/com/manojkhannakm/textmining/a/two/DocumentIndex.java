@@ -0,0 +1,216 @@
+package com.manojkhannakm.textmining.a.two;
+
+import java.util.Arrays;
+
+/**
+ * Exact cosine similarity search over LSA document vectors
+ * <p>
+ * The document vectors (the columns of S V^T) are normalized to unit length once and stored as rows of one
+ * contiguous float matrix, so the cosine of a query with every document is a single matrix-vector product
+ * with a query that is normalized once. Top-N search keeps only the N best documents seen so far in a bounded
+ * min-heap instead of sorting every score. For large collections an {@link IvfIndex} can be built on top of this
+ * index to search approximately.
+ *
+ * @author Manoj Khanna
+ */
+
+class DocumentIndex {
+
+    private final int documentCount, dimension;
+    private final float[] vectors;
+
+    public DocumentIndex(DenseMatrix svMatrix) {
+        dimension = svMatrix.getRowCount();
+        documentCount = svMatrix.getColumnCount();
+        vectors = new float[documentCount * dimension];
+
+        double[] sv = svMatrix.getData();
+        for (int i = 0; i < dimension; i++) {
+            for (int j = 0; j < documentCount; j++) {
+                vectors[j * dimension + i] = (float) sv[i * documentCount + j];
+            }
+        }
+
+        for (int j = 0; j < documentCount; j++) {
+            normalize(vectors, j * dimension, dimension);
+        }
+    }
+
+    DocumentIndex(float[] vectors, int documentCount, int dimension) {
+        this.vectors = vectors;
+        this.documentCount = documentCount;
+        this.dimension = dimension;
+    }
+
+    /**
+     * Normalizes x[offset, offset + length) to unit length in place, leaving a zero vector as it is
+     */
+    static void normalize(float[] x, int offset, int length) {
+        double norm = 0.0;
+        for (int i = offset; i < offset + length; i++) {
+            norm += x[i] * x[i];
+        }
+
+        if (norm > 0.0) {
+            float scale = (float) (1.0 / Math.sqrt(norm));
+            for (int i = offset; i < offset + length; i++) {
+                x[i] *= scale;
+            }
+        }
+    }
+
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    float[] getVectors() {
+        return vectors;
+    }
+
+    public float[] normalizeQuery(double[] q) {
+        if (q.length != dimension) {
+            throw new IllegalArgumentException("Query must have " + dimension + " dimensions: " + q.length);
+        }
+
+        float[] query = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            query[i] = (float) q[i];
+        }
+        normalize(query, 0, dimension);
+        return query;
+    }
+
+    /**
+     * Cosine of the query with every document, in document order
+     */
+    public float[] scoreAll(double[] q) {
+        float[] scores = new float[documentCount];
+        MatrixKernels.multiplyVector(documentCount, dimension, vectors, normalizeQuery(q), scores);
+        return scores;
+    }
+
+    public Hit[] search(double[] q, int topN) {
+        return search(normalizeQuery(q), topN);
+    }
+
+    public Hit[] search(float[] query, int topN) {
+        TopHits topHits = new TopHits(topN);
+        for (int j = 0; j < documentCount; j++) {
+            topHits.offer(j, MatrixKernels.dot(vectors, j * dimension, query, 0, dimension));
+        }
+        return topHits.toHits();
+    }
+
+    public static final class Hit {
+
+        private final int document;
+        private final float score;
+
+        Hit(int document, float score) {
+            this.document = document;
+            this.score = score;
+        }
+
+        public int getDocument() {
+            return document;
+        }
+
+        public float getScore() {
+            return score;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("S%d (%.4f)", document + 1, score);
+        }
+
+    }
+
+    /**
+     * Bounded min-heap of the best (id, score) pairs seen so far, ties going to the lower id
+     */
+    static class TopHits {
+
+        private final int[] ids;
+        private final float[] scores;
+        private int size;
+
+        public TopHits(int capacity) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+            }
+
+            ids = new int[capacity];
+            scores = new float[capacity];
+        }
+
+        public void offer(int id, float score) {
+            if (size < ids.length) {
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (!worse(score, id, scores[parent], ids[parent])) {
+                        break;
+                    }
+
+                    ids[i] = ids[parent];
+                    scores[i] = scores[parent];
+                    i = parent;
+                }
+                ids[i] = id;
+                scores[i] = score;
+                return;
+            }
+
+            if (!worse(scores[0], ids[0], score, id)) {
+                return;
+            }
+
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+
+                if (child + 1 < size && worse(scores[child + 1], ids[child + 1], scores[child], ids[child])) {
+                    child++;
+                }
+
+                if (!worse(scores[child], ids[child], score, id)) {
+                    break;
+                }
+
+                ids[i] = ids[child];
+                scores[i] = scores[child];
+                i = child;
+            }
+            ids[i] = id;
+            scores[i] = score;
+        }
+
+        public int[] ids() {
+            return Arrays.copyOf(ids, size);
+        }
+
+        public Hit[] toHits() {
+            Hit[] hits = new Hit[size];
+            for (int i = 0; i < size; i++) {
+                hits[i] = new Hit(ids[i], scores[i]);
+            }
+            Arrays.sort(hits, (hit1, hit2) -> worse(hit1.score, hit1.document, hit2.score, hit2.document) ? 1
+                    : worse(hit2.score, hit2.document, hit1.score, hit1.document) ? -1 : 0);
+            return hits;
+        }
+
+        private static boolean worse(float score1, int id1, float score2, int id2) {
+            return score1 < score2 || score1 == score2 && id1 > id2;
+        }
+
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.manojkhannakm.textmining.a.two;
+
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ * Compares exact top-N search of {@link DocumentIndex} against {@link IvfIndex} on generated document vectors
+ * <p>
+ * The vectors are drawn around random topic directions so that, like real LSA document vectors, they form
+ * clusters. The arguments are the document count (1000000 by default), the dimension (100), the query count
+ * (1000) and N (10). Recall is the share of the exact top-N documents that the approximate search also returns.
+ *
+ * @author Manoj Khanna
+ */
+
+public class DocumentIndexBenchmark {
+
+    public static void main(String[] args) {
+        int documentCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000000,
+                dimension = args.length > 1 ? Integer.parseInt(args[1]) : 100,
+                queryCount = args.length > 2 ? Integer.parseInt(args[2]) : 1000,
+                topN = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        System.out.format("Generating %d documents with %d dimensions...\n", documentCount, dimension);
+        long startTime = System.currentTimeMillis();
+
+        Random random = new Random(1);
+        int topicCount = Math.max(1, documentCount / 1000);
+        float[] topics = new float[topicCount * dimension];
+        for (int i = 0; i < topics.length; i++) {
+            topics[i] = (float) random.nextGaussian();
+        }
+
+        float[] vectors = new float[documentCount * dimension];
+        for (int j = 0; j < documentCount; j++) {
+            int topicOffset = random.nextInt(topicCount) * dimension;
+            for (int d = 0; d < dimension; d++) {
+                vectors[j * dimension + d] = topics[topicOffset + d] + 0.5f * (float) random.nextGaussian();
+            }
+            DocumentIndex.normalize(vectors, j * dimension, dimension);
+        }
+        DocumentIndex documentIndex = new DocumentIndex(vectors, documentCount, dimension);
+
+        double[][] queries = new double[queryCount][dimension];
+        for (double[] query : queries) {
+            int offset = random.nextInt(documentCount) * dimension;
+            for (int d = 0; d < dimension; d++) {
+                query[d] = vectors[offset + d] + 0.1 * random.nextGaussian();
+            }
+        }
+
+        System.out.format("Generated documents in %.2fs\n", (System.currentTimeMillis() - startTime) / 1000.0f);
+
+        System.out.println("");
+
+        startTime = System.nanoTime();
+        DocumentIndex.Hit[][] exactHits = new DocumentIndex.Hit[queryCount][];
+        for (int i = 0; i < queryCount; i++) {
+            exactHits[i] = documentIndex.search(queries[i], topN);
+        }
+        System.out.format("Exact          %8.3fms/query\n", (System.nanoTime() - startTime) / 1.0e6 / queryCount);
+
+        int listCount = Math.max(1, Math.min(documentCount, (int) Math.sqrt(documentCount)));
+        startTime = System.currentTimeMillis();
+        IvfIndex ivfIndex = new IvfIndex(documentIndex, listCount);
+        System.out.format("Built IVF index with %d lists in %.2fs\n", listCount, (System.currentTimeMillis() - startTime) / 1000.0f);
+
+        for (int probeCount = 1; probeCount <= listCount; probeCount *= 4) {
+            int found = 0;
+            startTime = System.nanoTime();
+            DocumentIndex.Hit[][] hits = new DocumentIndex.Hit[queryCount][];
+            for (int i = 0; i < queryCount; i++) {
+                hits[i] = ivfIndex.search(queries[i], topN, probeCount);
+            }
+            double time = (System.nanoTime() - startTime) / 1.0e6 / queryCount;
+
+            for (int i = 0; i < queryCount; i++) {
+                HashSet<Integer> documentSet = new HashSet<>();
+                for (DocumentIndex.Hit hit : exactHits[i]) {
+                    documentSet.add(hit.getDocument());
+                }
+                for (DocumentIndex.Hit hit : hits[i]) {
+                    if (documentSet.contains(hit.getDocument())) {
+                        found++;
+                    }
+                }
+            }
+
+            System.out.format("IVF %4d probes %8.3fms/query, recall@%d %.4f\n", probeCount, time, topN,
+                    found / (double) (queryCount * Math.min(topN, documentCount)));
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.manojkhannakm.textmining.a.two;
+
+import com.manojkhannakm.textmining.util.StopWordMatcher;
+import com.manojkhannakm.textmining.util.TermDictionary;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Grows an LSA space over the sentences of res/b1/large_input.txt with {@link IncrementalSvd}
+ * <p>
+ * The first half of the sentences is decomposed in full and the rest is added in batches (100 sentences by default, or
+ * the first argument) with Brand updates, printing the time, error and drift after every batch. The rank is 100 or the
+ * second argument. At the end the whole corpus is decomposed again to compare the time, the error and the leading
+ * singular values. Words are lower-cased and filtered against the stop words, but not lemmatized.
+ *
+ * @author Manoj Khanna
+ */
+
+public class IncrementalLsaBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int batchSize = args.length > 0 ? Integer.parseInt(args[0]) : 100,
+                rank = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        StopWordMatcher stopWordMatcher = StopWordMatcher.load("res/stop_words.txt");
+        TermDictionary termDictionary = new TermDictionary();
+        ArrayList<int[]> documentList = new ArrayList<>();
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader("res/b1/large_input.txt"))) {
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                ArrayList<Integer> idList = new ArrayList<>();
+                for (String s : line.toLowerCase().split("[^a-z]+")) {
+                    if (!s.isEmpty() && !stopWordMatcher.contains(s)) {
+                        idList.add(termDictionary.add(s));
+                    }
+                }
+
+                if (!idList.isEmpty()) {
+                    int[] ids = new int[idList.size()];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = idList.get(i);
+                    }
+                    documentList.add(ids);
+                }
+            }
+        }
+
+        int baseCount = documentList.size() / 2;
+
+        long startTime = System.currentTimeMillis();
+        SparseMatrix a = matrix(documentList, 0, baseCount);
+        IncrementalSvd incrementalSvd = new IncrementalSvd(new TruncatedSvd(a, rank), a.getSquaredNorm());
+        System.out.format("Decomposed %d sentences in %.2fs, error %.4f\n", baseCount, (System.currentTimeMillis() - startTime) / 1000.0f, incrementalSvd.getError());
+
+        System.out.println("");
+
+        long updateTime = 0;
+        for (int i = baseCount; i < documentList.size(); i += batchSize) {
+            int end = Math.min(i + batchSize, documentList.size());
+
+            startTime = System.currentTimeMillis();
+            incrementalSvd.update(matrix(documentList, i, end));
+            long time = System.currentTimeMillis() - startTime;
+            updateTime += time;
+
+            System.out.format("Added %5d sentences in %.2fs, error %.4f, drift %.4f\n", end - i, time / 1000.0f, incrementalSvd.getError(), incrementalSvd.getDrift());
+        }
+
+        System.out.println("");
+
+        startTime = System.currentTimeMillis();
+        a = matrix(documentList, 0, documentList.size());
+        TruncatedSvd svd = new TruncatedSvd(a, rank);
+        System.out.format("Updates took %.2fs, full decomposition of %d sentences took %.2fs\n", updateTime / 1000.0f,
+                documentList.size(), (System.currentTimeMillis() - startTime) / 1000.0f);
+
+        double energy = 0.0;
+        for (double value : svd.getSingularValues()) {
+            energy += value * value;
+        }
+        System.out.format("Error %.4f incremental, %.4f full\n", incrementalSvd.getError(), 1.0 - energy / a.getSquaredNorm());
+
+        double[] s1 = incrementalSvd.getSingularValues(),
+                s2 = svd.getSingularValues();
+        for (int p = 0; p < Math.min(rank, 10); p++) {
+            System.out.format("  s%-3d %10.4f %10.4f\n", p + 1, s1[p], s2[p]);
+        }
+    }
+
+    private static SparseMatrix matrix(ArrayList<int[]> documentList, int from, int to) {
+        SparseMatrix.Builder builder = new SparseMatrix.Builder();
+        int rowCount = 0;
+        for (int i = from; i < to; i++) {
+            for (int id : documentList.get(i)) {
+                builder.add(id, 1.0);
+                rowCount = Math.max(rowCount, id + 1);
+            }
+            builder.endColumn();
+        }
+        return builder.build(rowCount);
+    }
+
+}
@@ -0,0 +1,325 @@
+package com.manojkhannakm.textmining.a.two;
+
+import java.util.Arrays;
+
+/**
+ * Rank-k SVD of a growing term-document matrix
+ * <p>
+ * Starts from a {@link TruncatedSvd} of the documents seen so far and takes new documents in batches, as a
+ * matrix C with a column per document. New terms are allowed: the basis simply gains zero rows for them.
+ * <p>
+ * {@link #foldIn(SparseMatrix)} projects C onto the current basis, V gains the rows S^-1 U^T C and U and S
+ * stay as they are. {@link #update(SparseMatrix)} runs Brand's incremental SVD instead: with L = U^T C and
+ * the residual H = C - U L = J K, where J is orthonormal, [U S V^T, C] equals [U J] M diag(V, I)^T for the
+ * small matrix M = [S L; 0 K]. Only M, of size (k + r) x (k + c) where r <= c is the rank of H, is decomposed,
+ * and its top k triplets rotate U and V. The cost is O(m k^2 + nnz(C) k + (k + c)^3) plus one (n x k) (k x k)
+ * product for V, never a pass over the old documents.
+ * <p>
+ * Both methods lose some of the new data. Folding in keeps only the part of a document inside the current
+ * space, and updating drops the singular values of M beyond k. The lost energy (squared Frobenius norm) is
+ * tracked, so {@link #getError()} is the relative squared error ||A - U S V^T||^2 / ||A||^2 of the whole corpus.
+ * {@link #getDrift()} is how far that error has grown past the error of the base decomposition. When it passes
+ * a tolerance the space no longer describes the corpus as well as it did and a full decomposition is
+ * warranted.
+ *
+ * @author Manoj Khanna
+ */
+
+class IncrementalSvd {
+
+    private static final double RESIDUAL_TOLERANCE = 1.0e-10;
+
+    private int rowCount, documentCount;
+    private final int rank;
+    private double[] u, s, v;
+    private double totalEnergy, lostEnergy, baseError;
+
+    /**
+     * Starts from a decomposition whose truncation error is not known, taking it as exact
+     */
+    public IncrementalSvd(TruncatedSvd svd) {
+        this(svd, 0.0);
+    }
+
+    /**
+     * Starts from a decomposition of a matrix with the given squared Frobenius norm
+     */
+    public IncrementalSvd(TruncatedSvd svd, double energy) {
+        rank = svd.getRank();
+        rowCount = svd.getU().getRowCount();
+        documentCount = svd.getVT().getColumnCount();
+        u = svd.getU().getData().clone();
+        s = svd.getSingularValues().clone();
+
+        double[] vt = svd.getVT().getData();
+        v = new double[Math.max(documentCount, 16) * rank];
+        for (int p = 0; p < rank; p++) {
+            for (int j = 0; j < documentCount; j++) {
+                v[j * rank + p] = vt[p * documentCount + j];
+            }
+        }
+
+        for (double value : s) {
+            totalEnergy += value * value;
+        }
+        if (energy > totalEnergy) {
+            lostEnergy = energy - totalEnergy;
+            totalEnergy = energy;
+        }
+        baseError = getError();
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    public DenseMatrix getU() {
+        return new DenseMatrix(rowCount, rank, u.clone());
+    }
+
+    public double[] getSingularValues() {
+        return s.clone();
+    }
+
+    /**
+     * V as a documentCount x k matrix, one row per document
+     */
+    public DenseMatrix getV() {
+        return new DenseMatrix(documentCount, rank, Arrays.copyOf(v, documentCount * rank));
+    }
+
+    /**
+     * S V^T, the k x documentCount matrix whose columns are the document vectors
+     */
+    public DenseMatrix getDocumentVectors() {
+        DenseMatrix svMatrix = new DenseMatrix(rank, documentCount);
+        double[] sv = svMatrix.getData();
+        for (int j = 0; j < documentCount; j++) {
+            for (int p = 0; p < rank; p++) {
+                sv[p * documentCount + j] = s[p] * v[j * rank + p];
+            }
+        }
+        return svMatrix;
+    }
+
+    public double getError() {
+        return totalEnergy > 0.0 ? lostEnergy / totalEnergy : 0.0;
+    }
+
+    public double getDrift() {
+        return getError() - baseError;
+    }
+
+    public boolean needsRecompute(double tolerance) {
+        return getDrift() > tolerance;
+    }
+
+    /**
+     * Appends the documents of the batch without changing U and S
+     *
+     * @return the k x c matrix of document vectors U^T C of the batch
+     */
+    public DenseMatrix foldIn(SparseMatrix batch) {
+        int columnCount = batch.getColumnCount();
+        double[] l = project(batch),
+                g = batch.gram();
+
+        double[] capturedNorms = MatrixKernels.columnNorms(rank, columnCount, l);
+        for (int j = 0; j < columnCount; j++) {
+            double energy = g[j * columnCount + j];
+            totalEnergy += energy;
+            lostEnergy += Math.max(energy - capturedNorms[j] * capturedNorms[j], 0.0);
+        }
+
+        ensureDocuments(documentCount + columnCount);
+        for (int j = 0; j < columnCount; j++) {
+            int offset = (documentCount + j) * rank;
+            for (int p = 0; p < rank; p++) {
+                v[offset + p] = s[p] > 0.0 ? l[p * columnCount + j] / s[p] : 0.0;
+            }
+        }
+        documentCount += columnCount;
+
+        return new DenseMatrix(rank, columnCount, l);
+    }
+
+    /**
+     * Appends the documents of the batch and updates U, S and V with Brand's method
+     * <p>
+     * The residual H = C - U L is never formed. Since U^T H = 0, H^T H = C^T C - L^T L, and its eigenvectors Q
+     * and eigenvalues E give H = J K with K = E^1/2 Q^T and J = H Q E^-1/2. Only the directions with a
+     * non-negligible eigenvalue are kept. The new basis [U J] M_U[:, :k] is then U (M_U[:k] - L X) + C X with
+     * X = Q E^-1/2 M_U[k:], which costs one m x k x k product and one sparse product.
+     */
+    public void update(SparseMatrix batch) {
+        int columnCount = batch.getColumnCount();
+        double[] l = project(batch),
+                g = batch.gram();
+
+        double maxEnergy = 0.0;
+        for (int j = 0; j < columnCount; j++) {
+            totalEnergy += g[j * columnCount + j];
+            maxEnergy = Math.max(maxEnergy, g[j * columnCount + j]);
+        }
+
+        // H^T H = C^T C - L^T L, decomposed by orthogonalizing its rows: rows of W are the eigenvectors
+        double[] hh = new double[columnCount * columnCount],
+                q = new double[columnCount * columnCount];
+        MatrixKernels.multiplyTransposed(rank, columnCount, columnCount, l, l, hh);
+        for (int i = 0; i < hh.length; i++) {
+            hh[i] = g[i] - hh[i];
+        }
+        for (int i = 0; i < columnCount; i++) {
+            q[i * columnCount + i] = 1.0;
+        }
+        TruncatedSvd.orthogonalizeRows(hh, columnCount, columnCount, q);
+
+        int residualRank = 0;
+        int[] residualRows = new int[columnCount];
+        double[] eigenvalues = new double[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            double eigenvalue = Math.sqrt(MatrixKernels.dot(hh, i * columnCount, hh, i * columnCount, columnCount));
+            if (eigenvalue > RESIDUAL_TOLERANCE * maxEnergy) {
+                residualRows[residualRank] = i;
+                eigenvalues[residualRank++] = eigenvalue;
+            } else {
+                lostEnergy += eigenvalue;
+            }
+        }
+
+        // M = [S L; 0 K] is (k + r) x (k + c)
+        int size = rank + residualRank,
+                width = rank + columnCount;
+        double[] m = new double[size * width];
+        for (int p = 0; p < rank; p++) {
+            m[p * width + p] = s[p];
+            System.arraycopy(l, p * columnCount, m, p * width + rank, columnCount);
+        }
+        for (int i = 0; i < residualRank; i++) {
+            double scale = Math.sqrt(eigenvalues[i]);
+            int offset = residualRows[i] * columnCount;
+            for (int j = 0; j < columnCount; j++) {
+                m[(rank + i) * width + rank + j] = scale * q[offset + j];
+            }
+        }
+
+        // M is small, so it is decomposed directly: after the rotations W, the rows of W M are orthogonal,
+        // M = W^T (W M), and the row norms of W M are the singular values
+        double[] w = new double[size * size];
+        for (int i = 0; i < size; i++) {
+            w[i * size + i] = 1.0;
+        }
+        TruncatedSvd.orthogonalizeRows(m, size, width, w);
+
+        double[] rowNorms = new double[size];
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            rowNorms[i] = Math.sqrt(MatrixKernels.dot(m, i * width, m, i * width, width));
+            order[i] = i;
+        }
+        Arrays.sort(order, (p1, p2) -> Double.compare(rowNorms[p2], rowNorms[p1]));
+
+        double[] ms = new double[rank],
+                mu = new double[size * rank],
+                mvt = new double[rank * width];
+        for (int p = 0; p < size; p++) {
+            int r = order[p];
+            if (p >= rank) {
+                lostEnergy += rowNorms[r] * rowNorms[r];
+                continue;
+            }
+
+            ms[p] = rowNorms[r];
+            for (int i = 0; i < size; i++) {
+                mu[i * rank + p] = w[r * size + i];
+            }
+            for (int i = 0; i < width; i++) {
+                mvt[p * width + i] = ms[p] > 0.0 ? m[r * width + i] / ms[p] : 0.0;
+            }
+        }
+
+        // X = Q E^-1/2 M_U[k:, :k] is c x k and T = M_U[:k, :k] - L X is k x k
+        double[] x = new double[columnCount * rank],
+                t = new double[rank * rank];
+        for (int i = 0; i < residualRank; i++) {
+            double scale = 1.0 / Math.sqrt(eigenvalues[i]);
+            int offset = residualRows[i] * columnCount;
+            for (int j = 0; j < columnCount; j++) {
+                double qj = scale * q[offset + j];
+                for (int p = 0; p < rank; p++) {
+                    x[j * rank + p] += qj * mu[(rank + i) * rank + p];
+                }
+            }
+        }
+        MatrixKernels.multiply(rank, columnCount, rank, l, x, t);
+        for (int i = 0; i < rank * rank; i++) {
+            t[i] = mu[i] - t[i];
+        }
+
+        double[] ut = new double[rowCount * rank],
+                cx = new double[rowCount * rank];
+        MatrixKernels.multiply(rowCount, rank, rank, u, t, ut);
+        batch.multiply(x, rank, cx);
+        for (int i = 0; i < u.length; i++) {
+            u[i] = ut[i] + cx[i];
+        }
+
+        // V' = diag(V, I) M_V[:, :k]
+        double[] mv = new double[rank * rank],
+                rotated = new double[documentCount * rank];
+        for (int i = 0; i < rank; i++) {
+            for (int p = 0; p < rank; p++) {
+                mv[i * rank + p] = mvt[p * width + i];
+            }
+        }
+        MatrixKernels.multiply(documentCount, rank, rank, v, mv, rotated);
+
+        ensureDocuments(documentCount + columnCount);
+        System.arraycopy(rotated, 0, v, 0, rotated.length);
+        for (int j = 0; j < columnCount; j++) {
+            int offset = (documentCount + j) * rank;
+            for (int p = 0; p < rank; p++) {
+                v[offset + p] = mvt[p * width + rank + j];
+            }
+        }
+        documentCount += columnCount;
+
+        s = ms;
+    }
+
+    /**
+     * L = U^T C, the k x c projection of the batch, first growing U with zero rows for new terms
+     */
+    private double[] project(SparseMatrix batch) {
+        if (batch.getRowCount() > rowCount) {
+            u = Arrays.copyOf(u, batch.getRowCount() * rank);
+            rowCount = batch.getRowCount();
+        }
+
+        int columnCount = batch.getColumnCount();
+        double[] ct = new double[columnCount * rank],
+                l = new double[rank * columnCount];
+        batch.transposeMultiply(u, rank, ct);
+        for (int j = 0; j < columnCount; j++) {
+            for (int p = 0; p < rank; p++) {
+                l[p * columnCount + j] = ct[j * rank + p];
+            }
+        }
+        return l;
+    }
+
+    private void ensureDocuments(int count) {
+        if (count * rank > v.length) {
+            v = Arrays.copyOf(v, Math.max(count, documentCount * 2) * rank);
+        }
+    }
+
+}
@@ -0,0 +1,155 @@
+package com.manojkhannakm.textmining.a.two;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Approximate cosine similarity search with an inverted file index
+ * <p>
+ * The unit document vectors of a {@link DocumentIndex} are clustered with spherical k-means into a number of
+ * lists, each with a unit centroid. A query is compared with every centroid and only the documents of the
+ * closest lists are scored exactly, so a search touches about probeCount / listCount of the collection. The
+ * vectors are copied in list order, so every probed list is one sequential scan. More probes give better recall
+ * for more time, and probing every list gives the exact result.
+ * <p>
+ * The centroids are trained on a sample of at most {@link #SAMPLE_SIZE_PER_LIST} documents per list and every
+ * document is then assigned once, so building stays close to linear in the collection size.
+ *
+ * @author Manoj Khanna
+ */
+
+class IvfIndex {
+
+    public static final int SAMPLE_SIZE_PER_LIST = 64;
+    public static final int DEFAULT_ITERATIONS = 10;
+
+    private final DocumentIndex documentIndex;
+    private final int listCount, dimension;
+    private final float[] centroids, listVectors;
+    private final int[] listStarts, listDocuments;
+
+    public IvfIndex(DocumentIndex documentIndex, int listCount) {
+        this(documentIndex, listCount, DEFAULT_ITERATIONS, 1);
+    }
+
+    public IvfIndex(DocumentIndex documentIndex, int listCount, int iterations, long seed) {
+        int documentCount = documentIndex.getDocumentCount();
+        if (listCount < 1 || listCount > documentCount) {
+            throw new IllegalArgumentException("List count must be between 1 and " + documentCount + ": " + listCount);
+        }
+
+        this.documentIndex = documentIndex;
+        this.listCount = listCount;
+        dimension = documentIndex.getDimension();
+
+        float[] vectors = documentIndex.getVectors();
+        Random random = new Random(seed);
+
+        int sampleSize = (int) Math.min(documentCount, (long) listCount * SAMPLE_SIZE_PER_LIST);
+        int[] sample = sample(documentCount, sampleSize, random);
+
+        centroids = new float[listCount * dimension];
+        for (int c = 0; c < listCount; c++) {
+            System.arraycopy(vectors, sample[c] * dimension, centroids, c * dimension, dimension);
+        }
+
+        int[] assignments = new int[sampleSize];
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            IntStream.range(0, sampleSize).parallel()
+                    .forEach(i -> assignments[i] = nearestList(vectors, sample[i] * dimension));
+
+            int[] sizes = new int[listCount];
+            Arrays.fill(centroids, 0.0f);
+            for (int i = 0; i < sampleSize; i++) {
+                int offset = assignments[i] * dimension,
+                        vectorOffset = sample[i] * dimension;
+                for (int d = 0; d < dimension; d++) {
+                    centroids[offset + d] += vectors[vectorOffset + d];
+                }
+                sizes[assignments[i]]++;
+            }
+
+            for (int c = 0; c < listCount; c++) {
+                if (sizes[c] == 0) {
+                    System.arraycopy(vectors, sample[random.nextInt(sampleSize)] * dimension, centroids,
+                            c * dimension, dimension);
+                }
+                DocumentIndex.normalize(centroids, c * dimension, dimension);
+            }
+        }
+
+        int[] lists = new int[documentCount];
+        IntStream.range(0, documentCount).parallel()
+                .forEach(j -> lists[j] = nearestList(vectors, j * dimension));
+
+        listStarts = new int[listCount + 1];
+        for (int j = 0; j < documentCount; j++) {
+            listStarts[lists[j] + 1]++;
+        }
+        for (int c = 0; c < listCount; c++) {
+            listStarts[c + 1] += listStarts[c];
+        }
+
+        listDocuments = new int[documentCount];
+        listVectors = new float[documentCount * dimension];
+        int[] positions = Arrays.copyOf(listStarts, listCount);
+        for (int j = 0; j < documentCount; j++) {
+            int position = positions[lists[j]]++;
+            listDocuments[position] = j;
+            System.arraycopy(vectors, j * dimension, listVectors, position * dimension, dimension);
+        }
+    }
+
+    public int getListCount() {
+        return listCount;
+    }
+
+    public DocumentIndex.Hit[] search(double[] q, int topN, int probeCount) {
+        return search(documentIndex.normalizeQuery(q), topN, probeCount);
+    }
+
+    public DocumentIndex.Hit[] search(float[] query, int topN, int probeCount) {
+        DocumentIndex.TopHits topLists = new DocumentIndex.TopHits(Math.min(Math.max(probeCount, 1), listCount));
+        for (int c = 0; c < listCount; c++) {
+            topLists.offer(c, MatrixKernels.dot(centroids, c * dimension, query, 0, dimension));
+        }
+
+        DocumentIndex.TopHits topHits = new DocumentIndex.TopHits(topN);
+        for (int c : topLists.ids()) {
+            for (int i = listStarts[c]; i < listStarts[c + 1]; i++) {
+                topHits.offer(listDocuments[i], MatrixKernels.dot(listVectors, i * dimension, query, 0, dimension));
+            }
+        }
+        return topHits.toHits();
+    }
+
+    private int nearestList(float[] vectors, int offset) {
+        int best = 0;
+        float bestScore = Float.NEGATIVE_INFINITY;
+        for (int c = 0; c < listCount; c++) {
+            float score = MatrixKernels.dot(centroids, c * dimension, vectors, offset, dimension);
+            if (score > bestScore) {
+                best = c;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    private static int[] sample(int n, int size, Random random) {
+        int[] indices = new int[n];
+        for (int i = 0; i < n; i++) {
+            indices[i] = i;
+        }
+
+        for (int i = 0; i < size; i++) {
+            int j = i + random.nextInt(n - i);
+            int t = indices[i];
+            indices[i] = indices[j];
+            indices[j] = t;
+        }
+        return Arrays.copyOf(indices, size);
+    }
+
+}
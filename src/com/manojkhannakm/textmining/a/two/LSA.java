@@ -1,18 +1,16 @@
 package com.manojkhannakm.textmining.a.two;
 
+import com.manojkhannakm.textmining.util.StopWordMatcher;
+import com.manojkhannakm.textmining.util.TermDictionary;
 import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.pipeline.Annotation;
 import edu.stanford.nlp.pipeline.StanfordCoreNLP;
 import edu.stanford.nlp.util.CoreMap;
-import org.apache.commons.math3.linear.MatrixUtils;
-import org.apache.commons.math3.linear.RealMatrix;
-import org.apache.commons.math3.linear.SingularValueDecomposition;
 
 import java.io.*;
 import java.util.ArrayList;
 import java.util.Properties;
-import java.util.TreeMap;
-import java.util.TreeSet;
 
 /**
  * Latent Semantic Analysis
@@ -22,8 +20,10 @@ import java.util.TreeSet;
 
 public class LSA {
 
+    private static final int ANNOTATION_BATCH_SIZE = 32;
+
     private static StanfordCoreNLP pipeline;
-    private static Trie stopWordTrie;
+    private static StopWordMatcher stopWordMatcher;
 
     public static void main(String[] args) throws IOException {
         System.out.println("Reading input.txt...");
@@ -48,83 +48,88 @@ public class LSA {
         properties.setProperty("annotators", "tokenize, ssplit, pos, lemma");
         pipeline = new StanfordCoreNLP(properties);
 
-        BufferedReader stopWordBufferedReader = new BufferedReader(new FileReader("res/stop_words.txt"));
-        stopWordTrie = new Trie();
-        while ((line = stopWordBufferedReader.readLine()) != null) {
-            stopWordTrie.add(line);
-        }
-        stopWordBufferedReader.close();
+        stopWordMatcher = StopWordMatcher.load("res/stop_words.txt");
+
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        BatchAnnotator batchAnnotator = new BatchAnnotator(pipeline, threads, ANNOTATION_BATCH_SIZE);
 
         ArrayList<Sentence> sentenceList = new ArrayList<>();
         BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter("res/a2/output.txt"));
-        for (String s : lineList) {
-            Sentence sentence = new Sentence(s);
+        batchAnnotator.annotate(lineList, annotation -> {
+            Sentence sentence = new Sentence(annotation);
             sentenceList.add(sentence);
             bufferedWriter.write(sentence + "\n");
-        }
+        });
         bufferedWriter.write("\n");
 
-        System.out.format("Pre-processed sentences in %.2fs\n", (System.currentTimeMillis() - startTime) / 1000.0f);
+        System.out.format("Pre-processed %d sentences on %d threads in %.2fs (%.1f sentences/s, queue depth %.1f average, %d max)\n",
+                batchAnnotator.getDocumentCount(), threads, (System.currentTimeMillis() - startTime) / 1000.0f,
+                batchAnnotator.getDocumentsPerSecond(), batchAnnotator.getAverageQueueDepth(), batchAnnotator.getMaxQueueDepth());
 
         System.out.println("");
 
         System.out.println("Constructing term-document matrix...");
         startTime = System.currentTimeMillis();
 
-        TreeSet<String> wordSet = new TreeSet<>();
+        TermDictionary termDictionary = new TermDictionary();
+        SparseMatrix.Builder aBuilder = new SparseMatrix.Builder();
         for (Sentence sentence : sentenceList) {
             for (String word : sentence.wordList) {
-                wordSet.add(word);
+                aBuilder.add(termDictionary.add(word), 1.0);
             }
+            aBuilder.endColumn();
         }
-        ArrayList<String> wordList = new ArrayList<>(wordSet);
+        termDictionary.freeze();
+        int[] sortedIds = termDictionary.sortedIds();
 
-        int wordCount = wordList.size(),
+        int wordCount = termDictionary.size(),
                 sentenceCount = sentenceList.size();
-        double[][] a = new double[wordCount][sentenceCount];
-        for (int i = 0; i < sentenceList.size(); i++) {
-            for (String word : sentenceList.get(i).wordList) {
-                a[wordList.indexOf(word)][i]++;
-            }
-        }
+        SparseMatrix a = aBuilder.build(wordCount);
+
+        TermWeighting termWeighting = args.length > 1
+                ? TermWeighting.valueOf(args[1].toUpperCase().replace('-', '_')) : TermWeighting.LOG_ENTROPY;
+        TermStatistics termStatistics = aBuilder.getTermStatistics();
+        double[] globalWeights = a.weight(termWeighting, termStatistics);
 
         bufferedWriter.write(String.format("%-14s", "A"));
         for (int i = 1; i <= sentenceCount; i++) {
             bufferedWriter.write(String.format("S%-6d", i));
         }
         bufferedWriter.write("\n\n");
-        for (int i = 0; i < wordCount; i++) {
-            bufferedWriter.write(String.format("%-14s", wordList.get(i)));
+        for (int i : sortedIds) {
+            bufferedWriter.write(String.format("%-14s", termDictionary.getTerm(i)));
             for (int j = 0; j < sentenceCount; j++) {
-                bufferedWriter.write(String.format("%-7d", (int) a[i][j]));
+                bufferedWriter.write(String.format("%-7.2f", a.get(i, j)));
             }
             bufferedWriter.write("\n\n");
         }
 
-        System.out.format("Constructed term-document matrix as %dx%d in %.2fs\n", wordCount, sentenceCount, (System.currentTimeMillis() - startTime) / 1000.0f);
+        System.out.format("Constructed %s weighted term-document matrix as %dx%d with %d non-zeros in %.2fs\n", termWeighting, wordCount, sentenceCount, a.getNonZeroCount(), (System.currentTimeMillis() - startTime) / 1000.0f);
 
         System.out.println("");
 
         System.out.println("Decomposing term-document matrix...");
 
-        RealMatrix aMatrix = MatrixUtils.createRealMatrix(a);
-        SingularValueDecomposition svd = new SingularValueDecomposition(aMatrix);
-        int k = Integer.parseInt(bufferedReader.readLine());
-        RealMatrix uMatrix = svd.getU().getSubMatrix(0, wordCount - 1, 0, k - 1),
-                sMatrix = svd.getS().getSubMatrix(0, k - 1, 0, k - 1),
-                vMatrix = svd.getVT().getSubMatrix(0, k - 1, 0, sentenceCount - 1),
-                usMatrix = uMatrix.multiply(sMatrix),
-                svMatrix = sMatrix.multiply(vMatrix);
+        int k = Integer.parseInt(bufferedReader.readLine()),
+                powerIterations = args.length > 0 ? Integer.parseInt(args[0]) : TruncatedSvd.DEFAULT_POWER_ITERATIONS;
+        TruncatedSvd svd = new TruncatedSvd(a, k, TruncatedSvd.DEFAULT_OVERSAMPLING, powerIterations, 1);
+        DenseMatrix uMatrix = svd.getU(),
+                vMatrix = svd.getVT(),
+                usMatrix = new DenseMatrix(wordCount, k),
+                svMatrix = new DenseMatrix(k, sentenceCount);
+        double[] s = svd.getSingularValues();
+        MatrixKernels.scaleColumns(wordCount, k, uMatrix.getData(), s, usMatrix.getData());
+        MatrixKernels.scaleRows(k, sentenceCount, s, vMatrix.getData(), svMatrix.getData());
 
         bufferedWriter.write(String.format("%-14s", "U"));
         for (int i = 1; i <= k; i++) {
             bufferedWriter.write(String.format("%-7d", i));
         }
         bufferedWriter.write("\n\n");
-        for (int i = 0; i < wordCount; i++) {
-            bufferedWriter.write(String.format("%-14s", wordList.get(i)));
+        for (int i : sortedIds) {
+            bufferedWriter.write(String.format("%-14s", termDictionary.getTerm(i)));
             for (int j = 0; j < k; j++) {
-                bufferedWriter.write(String.format("%-7.2f", uMatrix.getData()[i][j]));
+                bufferedWriter.write(String.format("%-7.2f", uMatrix.get(i, j)));
             }
             bufferedWriter.write("\n\n");
         }
@@ -137,7 +142,7 @@ public class LSA {
         for (int i = 0; i < k; i++) {
             bufferedWriter.write(String.format("%-14d", i + 1));
             for (int j = 0; j < k; j++) {
-                bufferedWriter.write(String.format("%-7.2f", sMatrix.getData()[i][j]));
+                bufferedWriter.write(String.format("%-7.2f", i == j ? s[i] : 0.0));
             }
             bufferedWriter.write("\n\n");
         }
@@ -150,7 +155,7 @@ public class LSA {
         for (int i = 0; i < k; i++) {
             bufferedWriter.write(String.format("%-14d", i + 1));
             for (int j = 0; j < sentenceCount; j++) {
-                bufferedWriter.write(String.format("%-7.2f", vMatrix.getData()[i][j]));
+                bufferedWriter.write(String.format("%-7.2f", vMatrix.get(i, j)));
             }
             bufferedWriter.write("\n\n");
         }
@@ -160,10 +165,10 @@ public class LSA {
             bufferedWriter.write(String.format("%-7d", i));
         }
         bufferedWriter.write("\n\n");
-        for (int i = 0; i < wordCount; i++) {
-            bufferedWriter.write(String.format("%-14s", wordList.get(i)));
+        for (int i : sortedIds) {
+            bufferedWriter.write(String.format("%-14s", termDictionary.getTerm(i)));
             for (int j = 0; j < k; j++) {
-                bufferedWriter.write(String.format("%-7.2f", usMatrix.getData()[i][j]));
+                bufferedWriter.write(String.format("%-7.2f", usMatrix.get(i, j)));
             }
             bufferedWriter.write("\n\n");
         }
@@ -176,26 +181,48 @@ public class LSA {
         for (int i = 0; i < k; i++) {
             bufferedWriter.write(String.format("%-14d", i + 1));
             for (int j = 0; j < sentenceCount; j++) {
-                bufferedWriter.write(String.format("%-7.2f", svMatrix.getData()[i][j]));
+                bufferedWriter.write(String.format("%-7.2f", svMatrix.get(i, j)));
             }
             bufferedWriter.write("\n\n");
         }
 
         System.out.format("Decomposed term-document matrix in %.2fs\n", (System.currentTimeMillis() - startTime) / 1000.0f);
 
+        System.out.println("");
+
+        System.out.println("Saving model...");
+        startTime = System.currentTimeMillis();
+
+        DocumentIndex documentIndex = new DocumentIndex(svMatrix);
+        float[] termWeights = new float[wordCount];
+        for (int i = 0; i < wordCount; i++) {
+            termWeights[i] = (float) globalWeights[i];
+        }
+        LsaModel.save("res/a2/model.bin", termDictionary, termWeighting, termWeights,
+                termStatistics.getAverageLength(), usMatrix, documentIndex);
+
+        System.out.format("Saved model in %.2fs\n", (System.currentTimeMillis() - startTime) / 1000.0f);
+
         bufferedReader.readLine();
 
-        Sentence sentence = new Sentence(bufferedReader.readLine());
+        Sentence sentence = new Sentence(pipeline.process(bufferedReader.readLine()));
         bufferedWriter.write(sentence + "\n\n");
 
-        RealMatrix qMatrix = MatrixUtils.createRealMatrix(1, k);
+        double[] c = new double[wordCount];
         for (String word : sentence.wordList) {
-            int i = wordList.indexOf(word);
+            int i = termDictionary.get(word);
             if (i >= 0) {
-                qMatrix = qMatrix.add(usMatrix.getRowMatrix(i));
+                c[i]++;
             }
         }
-        qMatrix = qMatrix.scalarMultiply(1.0 / sentence.wordList.size());
+        for (int i = 0; i < wordCount; i++) {
+            if (c[i] > 0.0) {
+                c[i] = termWeighting.local(c[i], sentence.wordList.size(), termStatistics.getAverageLength())
+                        * globalWeights[i];
+            }
+        }
+        double[] q = new double[k];
+        MatrixKernels.multiplyVectorTransposed(wordCount, k, usMatrix.getData(), c, q);
 
         bufferedWriter.write(String.format("%-14s", "Q"));
         for (int i = 1; i <= k; i++) {
@@ -204,93 +231,31 @@ public class LSA {
         bufferedWriter.write("\n\n");
         bufferedWriter.write(String.format("%-14d", 1));
         for (int j = 0; j < k; j++) {
-            bufferedWriter.write(String.format("%-7.2f", qMatrix.getData()[0][j]));
+            bufferedWriter.write(String.format("%-7.2f", q[j]));
         }
         bufferedWriter.write("\n\n");
 
+        float[] scores = documentIndex.scoreAll(q);
         for (int i = 0; i < sentenceCount; i++) {
-            double[][] sv = svMatrix.getData(),
-                    q = qMatrix.getData();
-
-            double x = 0.0;
-            for (int j = 0; j < k; j++) {
-                x += sv[j][i] * q[0][j];
-            }
-
-            double y1 = 0.0;
-            for (int j = 0; j < k; j++) {
-                y1 += sv[j][i] * sv[j][i];
-            }
-            y1 = Math.sqrt(y1);
-
-            double y2 = 0.0;
-            for (int j = 0; j < k; j++) {
-                y2 += q[0][j] * q[0][j];
-            }
-            y2 = Math.sqrt(y2);
-
-            bufferedWriter.write(String.format("cos(S%d, Q) = %.4f\n", i + 1, x / (y1 * y2)));
+            bufferedWriter.write(String.format("cos(S%d, Q) = %.4f\n", i + 1, scores[i]));
         }
 
         bufferedReader.close();
         bufferedWriter.close();
     }
 
-    private static class Trie {
-
-        private Node rootNode = new Node();
-
-        public void add(String word) {
-            Node node = rootNode;
-            for (int i = 0; i < word.length(); i++) {
-                char c = word.charAt(i);
-                Node childNode = node.childNodeMap.get(c);
-                if (childNode == null) {
-                    childNode = new Node();
-                    node.childNodeMap.put(c, childNode);
-                }
-
-                node = childNode;
-            }
-
-            node.word = true;
-        }
-
-        public boolean contains(String word) {
-            Node node = rootNode;
-            for (int i = 0; i < word.length(); i++) {
-                Node childNode = node.childNodeMap.get(word.charAt(i));
-                if (childNode == null) {
-                    return false;
-                }
-
-                node = childNode;
-            }
-
-            return node.word;
-        }
-
-        private class Node {
-
-            private boolean word;
-            private TreeMap<Character, Node> childNodeMap = new TreeMap<>();
-
-        }
-
-    }
-
     private static class Sentence {
 
         private ArrayList<String> wordList = new ArrayList<>();
 
-        public Sentence(String s) {
-            for (CoreMap sentence : pipeline.process(s).get(CoreAnnotations.SentencesAnnotation.class)) {
+        public Sentence(Annotation annotation) {
+            for (CoreMap sentence : annotation.get(CoreAnnotations.SentencesAnnotation.class)) {
                 for (CoreLabel token : sentence.get(CoreAnnotations.TokensAnnotation.class)) {
                     String word = token.get(CoreAnnotations.LemmaAnnotation.class)
                             .toLowerCase()
                             .replaceAll("[^a-z]", "");
                     if (!word.isEmpty()
-                            && !stopWordTrie.contains(word)) {
+                            && !stopWordMatcher.contains(word)) {
                         wordList.add(word);
                     }
                 }
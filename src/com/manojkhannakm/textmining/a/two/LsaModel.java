@@ -0,0 +1,313 @@
+package com.manojkhannakm.textmining.a.two;
+
+import com.manojkhannakm.textmining.util.TermDictionary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Trained LSA model stored in a memory-mapped file
+ * <p>
+ * The file holds everything needed to answer a query: the vocabulary, the weighting scheme with the average document
+ * length and a global weight per term, the term vectors (rows of U_k S_k) and the unit document vectors. All sections
+ * are flat arrays of fixed-width values, and the vocabulary comes with an open addressing hash table of term ids, so
+ * {@link #open(String)} only maps the file and wraps the sections in buffer views. Terms are looked up and documents
+ * scored directly in the mapped pages without reading the model into the heap first.
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ * int    magic, version, termCount, dimension, documentCount, tableSize, termCharCount, termWeighting
+ * float  averageLength
+ * int    termStarts[termCount + 1]     offsets into termChars
+ * int    table[tableSize]              term id + 1, or 0 for an empty slot
+ * float  termWeights[termCount]
+ * float  termVectors[termCount][dimension]
+ * float  documentVectors[documentCount][dimension]
+ * char   termChars[termCharCount]
+ * </pre>
+ *
+ * @author Manoj Khanna
+ */
+
+class LsaModel {
+
+    private static final int MAGIC = 0x4c534131;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 9 * 4;
+
+    private final int termCount, dimension, documentCount;
+    private final TermWeighting termWeighting;
+    private final float averageLength;
+    private final IntBuffer termStarts, table;
+    private final FloatBuffer termWeights, termVectors, documentVectors;
+    private final CharBuffer termChars;
+
+    private LsaModel(ByteBuffer byteBuffer) throws IOException {
+        if (byteBuffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an LSA model");
+        }
+
+        if (byteBuffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported LSA model version: " + byteBuffer.getInt(4));
+        }
+
+        termCount = byteBuffer.getInt(8);
+        dimension = byteBuffer.getInt(12);
+        documentCount = byteBuffer.getInt(16);
+        int tableSize = byteBuffer.getInt(20),
+                termCharCount = byteBuffer.getInt(24);
+        termWeighting = TermWeighting.values()[byteBuffer.getInt(28)];
+        averageLength = byteBuffer.getFloat(32);
+
+        int position = HEADER_SIZE;
+        termStarts = slice(byteBuffer, position, (termCount + 1) * 4).asIntBuffer();
+        position += (termCount + 1) * 4;
+        table = slice(byteBuffer, position, tableSize * 4).asIntBuffer();
+        position += tableSize * 4;
+        termWeights = slice(byteBuffer, position, termCount * 4).asFloatBuffer();
+        position += termCount * 4;
+        termVectors = slice(byteBuffer, position, termCount * dimension * 4).asFloatBuffer();
+        position += termCount * dimension * 4;
+        documentVectors = slice(byteBuffer, position, documentCount * dimension * 4).asFloatBuffer();
+        position += documentCount * dimension * 4;
+        termChars = slice(byteBuffer, position, termCharCount * 2).asCharBuffer();
+    }
+
+    public static LsaModel open(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            MappedByteBuffer byteBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new LsaModel(byteBuffer);
+        }
+    }
+
+    /**
+     * Writes a model with the given vocabulary, weighting scheme, global term weights, average document length,
+     * U_k S_k (one row per term id) and document index.
+     */
+    public static void save(String fileName, TermDictionary termDictionary, TermWeighting termWeighting,
+                            float[] termWeights, double averageLength, DenseMatrix usMatrix,
+                            DocumentIndex documentIndex) throws IOException {
+        int termCount = termDictionary.size(),
+                dimension = usMatrix.getColumnCount(),
+                documentCount = documentIndex.getDocumentCount();
+        if (usMatrix.getRowCount() != termCount || termWeights.length != termCount
+                || documentIndex.getDimension() != dimension) {
+            throw new IllegalArgumentException("Model parts do not match");
+        }
+
+        int[] termStarts = new int[termCount + 1];
+        for (int i = 0; i < termCount; i++) {
+            termStarts[i + 1] = termStarts[i] + termDictionary.getTerm(i).length();
+        }
+
+        int tableSize = Integer.highestOneBit(Math.max(termCount, 1) * 2 - 1) << 1;
+        int[] table = new int[tableSize];
+        for (int i = 0; i < termCount; i++) {
+            int j = mix(termDictionary.getTerm(i).hashCode()) & (tableSize - 1);
+            while (table[j] != 0) {
+                j = (j + 1) & (tableSize - 1);
+            }
+            table[j] = i + 1;
+        }
+
+        long size = HEADER_SIZE + (termCount + 1 + tableSize + termCount) * 4L
+                + (long) (termCount + documentCount) * dimension * 4L + termStarts[termCount] * 2L;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Model too large: " + size + " bytes");
+        }
+
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer byteBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            byteBuffer.putInt(MAGIC).putInt(VERSION).putInt(termCount).putInt(dimension).putInt(documentCount)
+                    .putInt(tableSize).putInt(termStarts[termCount]).putInt(termWeighting.ordinal())
+                    .putFloat((float) averageLength);
+
+            for (int termStart : termStarts) {
+                byteBuffer.putInt(termStart);
+            }
+            for (int i : table) {
+                byteBuffer.putInt(i);
+            }
+            for (float termWeight : termWeights) {
+                byteBuffer.putFloat(termWeight);
+            }
+            for (double us : usMatrix.getData()) {
+                byteBuffer.putFloat((float) us);
+            }
+            for (float v : documentIndex.getVectors()) {
+                byteBuffer.putFloat(v);
+            }
+            for (int i = 0; i < termCount; i++) {
+                String term = termDictionary.getTerm(i);
+                for (int j = 0; j < term.length(); j++) {
+                    byteBuffer.putChar(term.charAt(j));
+                }
+            }
+
+            byteBuffer.force();
+        }
+    }
+
+    public int getTermCount() {
+        return termCount;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    public int getTermId(CharSequence term) {
+        int hash = 0;
+        for (int i = 0; i < term.length(); i++) {
+            hash = 31 * hash + term.charAt(i);
+        }
+
+        int mask = table.capacity() - 1,
+                j = mix(hash) & mask;
+        while (true) {
+            int id = table.get(j) - 1;
+            if (id < 0) {
+                return -1;
+            }
+
+            if (termEquals(id, term)) {
+                return id;
+            }
+
+            j = (j + 1) & mask;
+        }
+    }
+
+    public String getTerm(int id) {
+        int start = termStarts.get(id),
+                end = termStarts.get(id + 1);
+        char[] chars = new char[end - start];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = termChars.get(start + i);
+        }
+        return new String(chars);
+    }
+
+    public float getTermWeight(int id) {
+        return termWeights.get(id);
+    }
+
+    public TermWeighting getTermWeighting() {
+        return termWeighting;
+    }
+
+    /**
+     * Query vector of a document given as words: the sum of the term vectors of its known words, each weighted like
+     * a column of the matrix by the local weight of its count in the document times its global weight
+     */
+    public double[] foldIn(List<String> wordList) {
+        int[] ids = new int[wordList.size()];
+        int n = 0;
+        for (String word : wordList) {
+            int id = getTermId(word);
+            if (id >= 0) {
+                ids[n++] = id;
+            }
+        }
+        Arrays.sort(ids, 0, n);
+
+        double[] q = new double[dimension];
+        for (int i = 0; i < n; ) {
+            int id = ids[i], count = 0;
+            while (i < n && ids[i] == id) {
+                i++;
+                count++;
+            }
+
+            double weight = termWeighting.local(count, wordList.size(), averageLength) * termWeights.get(id);
+            int offset = id * dimension;
+            for (int d = 0; d < dimension; d++) {
+                q[d] += weight * termVectors.get(offset + d);
+            }
+        }
+        return q;
+    }
+
+    /**
+     * Cosine of the query with every document, in document order
+     */
+    public float[] scoreAll(double[] q) {
+        float[] query = unit(q),
+                scores = new float[documentCount];
+        for (int j = 0; j < documentCount; j++) {
+            scores[j] = dot(j * dimension, query);
+        }
+        return scores;
+    }
+
+    public DocumentIndex.Hit[] search(double[] q, int topN) {
+        float[] query = unit(q);
+        DocumentIndex.TopHits topHits = new DocumentIndex.TopHits(topN);
+        for (int j = 0; j < documentCount; j++) {
+            topHits.offer(j, dot(j * dimension, query));
+        }
+        return topHits.toHits();
+    }
+
+    private float dot(int offset, float[] query) {
+        float sum = 0.0f;
+        for (int d = 0; d < dimension; d++) {
+            sum += documentVectors.get(offset + d) * query[d];
+        }
+        return sum;
+    }
+
+    private float[] unit(double[] q) {
+        if (q.length != dimension) {
+            throw new IllegalArgumentException("Query must have " + dimension + " dimensions: " + q.length);
+        }
+
+        float[] query = new float[dimension];
+        for (int d = 0; d < dimension; d++) {
+            query[d] = (float) q[d];
+        }
+        DocumentIndex.normalize(query, 0, dimension);
+        return query;
+    }
+
+    private boolean termEquals(int id, CharSequence term) {
+        int start = termStarts.get(id);
+        if (termStarts.get(id + 1) - start != term.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < term.length(); i++) {
+            if (termChars.get(start + i) != term.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ByteBuffer slice(ByteBuffer byteBuffer, int position, int length) {
+        ByteBuffer duplicate = byteBuffer.duplicate();
+        duplicate.position(position);
+        duplicate.limit(position + length);
+        return duplicate.slice();
+    }
+
+    private static int mix(int hash) {
+        hash *= 0x9e3779b9;
+        return hash ^ (hash >>> 16);
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.manojkhannakm.textmining.a.two;
+
+import com.manojkhannakm.textmining.util.StopWordMatcher;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+
+/**
+ * Answers queries from a model saved by {@link LSA}
+ * <p>
+ * Maps the model (res/a2/model.bin or the first argument) and prints the top N sentences (10 or the second
+ * argument) for every query line read from standard input. Query words are lower-cased, stripped of non-letters
+ * and filtered against the stop words, but not lemmatized, so they match the vocabulary in their base form.
+ *
+ * @author Manoj Khanna
+ */
+
+public class LsaQuery {
+
+    public static void main(String[] args) throws IOException {
+        String modelFileName = args.length > 0 ? args[0] : "res/a2/model.bin";
+        int topN = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        long startTime = System.nanoTime();
+
+        LsaModel model = LsaModel.open(modelFileName);
+        StopWordMatcher stopWordMatcher = StopWordMatcher.load("res/stop_words.txt");
+
+        System.out.format("Opened model with %d terms, %d sentences and %d dimensions in %.2fms\n",
+                model.getTermCount(), model.getDocumentCount(), model.getDimension(), (System.nanoTime() - startTime) / 1.0e6);
+
+        BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(System.in));
+        String line;
+        while ((line = bufferedReader.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            startTime = System.nanoTime();
+
+            ArrayList<String> wordList = new ArrayList<>();
+            for (String s : line.split("\\s+")) {
+                String word = s.toLowerCase().replaceAll("[^a-z]", "");
+                if (!word.isEmpty() && !stopWordMatcher.contains(word)) {
+                    wordList.add(word);
+                }
+            }
+
+            DocumentIndex.Hit[] hits = model.search(model.foldIn(wordList), topN);
+
+            System.out.println("");
+            System.out.format("%s (%.2fms)\n", wordList, (System.nanoTime() - startTime) / 1.0e6);
+            for (DocumentIndex.Hit hit : hits) {
+                System.out.format("  S%-6d %.4f\n", hit.getDocument() + 1, hit.getScore());
+            }
+        }
+    }
+
+}
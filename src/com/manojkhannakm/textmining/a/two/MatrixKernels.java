@@ -0,0 +1,260 @@
+package com.manojkhannakm.textmining.a.two;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Dense matrix kernels on flat row-major arrays
+ * <p>
+ * An m x n matrix is a double[] or float[] holding row i at offset {@code i * n}. The products are cache-blocked,
+ * so a block of B is reused from cache by every row of A before moving on, and rows of the result are split
+ * between the workers of the common fork-join pool once a product is big enough to pay for the forking. Every
+ * worker writes a disjoint range of rows, so there is no locking and the result does not depend on the
+ * number of workers. Multiplying by a diagonal matrix is a row or column scaling and has its own kernels.
+ *
+ * @author Manoj Khanna
+ */
+
+final class MatrixKernels {
+
+    private static final int BLOCK_SIZE = 64;
+    private static final long PARALLEL_THRESHOLD = 1L << 16;
+
+    private MatrixKernels() {
+    }
+
+    /**
+     * c = a b, where a is m x k, b is k x n and c is m x n
+     */
+    public static void multiply(int m, int k, int n, double[] a, double[] b, double[] c) {
+        forRows(m, (long) k * n, (from, to) -> {
+            Arrays.fill(c, from * n, to * n, 0.0);
+            for (int pp = 0; pp < k; pp += BLOCK_SIZE) {
+                int pEnd = Math.min(pp + BLOCK_SIZE, k);
+                for (int jj = 0; jj < n; jj += BLOCK_SIZE * 4) {
+                    int jEnd = Math.min(jj + BLOCK_SIZE * 4, n);
+                    for (int i = from; i < to; i++) {
+                        int cOffset = i * n;
+                        for (int p = pp; p < pEnd; p++) {
+                            double aip = a[i * k + p];
+                            if (aip == 0.0) {
+                                continue;
+                            }
+
+                            int bOffset = p * n;
+                            for (int j = jj; j < jEnd; j++) {
+                                c[cOffset + j] += aip * b[bOffset + j];
+                            }
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * c = a b, where a is m x k, b is k x n and c is m x n
+     */
+    public static void multiply(int m, int k, int n, float[] a, float[] b, float[] c) {
+        forRows(m, (long) k * n, (from, to) -> {
+            Arrays.fill(c, from * n, to * n, 0.0f);
+            for (int pp = 0; pp < k; pp += BLOCK_SIZE) {
+                int pEnd = Math.min(pp + BLOCK_SIZE, k);
+                for (int jj = 0; jj < n; jj += BLOCK_SIZE * 4) {
+                    int jEnd = Math.min(jj + BLOCK_SIZE * 4, n);
+                    for (int i = from; i < to; i++) {
+                        int cOffset = i * n;
+                        for (int p = pp; p < pEnd; p++) {
+                            float aip = a[i * k + p];
+                            if (aip == 0.0f) {
+                                continue;
+                            }
+
+                            int bOffset = p * n;
+                            for (int j = jj; j < jEnd; j++) {
+                                c[cOffset + j] += aip * b[bOffset + j];
+                            }
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * c = a^T b, where a is m x k, b is m x n and c is k x n
+     */
+    public static void multiplyTransposed(int m, int k, int n, double[] a, double[] b, double[] c) {
+        forRows(k, (long) m * n, (from, to) -> {
+            Arrays.fill(c, from * n, to * n, 0.0);
+            for (int ii = 0; ii < m; ii += BLOCK_SIZE) {
+                int iEnd = Math.min(ii + BLOCK_SIZE, m);
+                for (int p = from; p < to; p++) {
+                    int cOffset = p * n;
+                    for (int i = ii; i < iEnd; i++) {
+                        double aip = a[i * k + p];
+                        if (aip == 0.0) {
+                            continue;
+                        }
+
+                        int bOffset = i * n;
+                        for (int j = 0; j < n; j++) {
+                            c[cOffset + j] += aip * b[bOffset + j];
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * y = a x, where a is m x n
+     */
+    public static void multiplyVector(int m, int n, double[] a, double[] x, double[] y) {
+        forRows(m, n, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                y[i] = dot(a, i * n, x, 0, n);
+            }
+        });
+    }
+
+    /**
+     * y = a x, where a is m x n
+     */
+    public static void multiplyVector(int m, int n, float[] a, float[] x, float[] y) {
+        forRows(m, n, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                y[i] = dot(a, i * n, x, 0, n);
+            }
+        });
+    }
+
+    /**
+     * y = a^T x, where a is m x n
+     */
+    public static void multiplyVectorTransposed(int m, int n, double[] a, double[] x, double[] y) {
+        forRows(n, m, (from, to) -> {
+            Arrays.fill(y, from, to, 0.0);
+            for (int i = 0; i < m; i++) {
+                double xi = x[i];
+                int aOffset = i * n;
+                for (int j = from; j < to; j++) {
+                    y[j] += xi * a[aOffset + j];
+                }
+            }
+        });
+    }
+
+    /**
+     * c = a diag(d), where a is m x n
+     */
+    public static void scaleColumns(int m, int n, double[] a, double[] d, double[] c) {
+        forRows(m, n, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                int offset = i * n;
+                for (int j = 0; j < n; j++) {
+                    c[offset + j] = a[offset + j] * d[j];
+                }
+            }
+        });
+    }
+
+    /**
+     * c = diag(d) a, where a is m x n
+     */
+    public static void scaleRows(int m, int n, double[] d, double[] a, double[] c) {
+        forRows(m, n, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                int offset = i * n;
+                double di = d[i];
+                for (int j = 0; j < n; j++) {
+                    c[offset + j] = di * a[offset + j];
+                }
+            }
+        });
+    }
+
+    /**
+     * Euclidean norms of the n columns of the m x n matrix a
+     */
+    public static double[] columnNorms(int m, int n, double[] a) {
+        double[] norms = new double[n];
+        for (int i = 0; i < m; i++) {
+            int offset = i * n;
+            for (int j = 0; j < n; j++) {
+                norms[j] += a[offset + j] * a[offset + j];
+            }
+        }
+
+        for (int j = 0; j < n; j++) {
+            norms[j] = Math.sqrt(norms[j]);
+        }
+        return norms;
+    }
+
+    public static double dot(double[] x, int xOffset, double[] y, int yOffset, int length) {
+        double sum = 0.0;
+        for (int i = 0; i < length; i++) {
+            sum += x[xOffset + i] * y[yOffset + i];
+        }
+        return sum;
+    }
+
+    public static float dot(float[] x, int xOffset, float[] y, int yOffset, int length) {
+        float sum = 0.0f;
+        for (int i = 0; i < length; i++) {
+            sum += x[xOffset + i] * y[yOffset + i];
+        }
+        return sum;
+    }
+
+    /**
+     * Runs body over the rows [0, rows), split into ranges between the workers of the common pool when the
+     * total work of rows x rowCost is large enough.
+     */
+    private static void forRows(int rows, long rowCost, RowRange body) {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        if (parallelism < 2 || rows < 2 || rows * rowCost < PARALLEL_THRESHOLD) {
+            body.run(0, rows);
+            return;
+        }
+
+        int grain = (int) Math.max(1, Math.max(rows / (parallelism * 4), PARALLEL_THRESHOLD / Math.max(rowCost, 1)));
+        ForkJoinPool.commonPool().invoke(new RowTask(body, 0, rows, grain));
+    }
+
+    private interface RowRange {
+
+        void run(int from, int to);
+
+    }
+
+    private static class RowTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private RowRange body;
+        private int from, to, grain;
+
+        public RowTask(RowRange body, int from, int to, int grain) {
+            this.body = body;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                body.run(from, to);
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(new RowTask(body, from, mid, grain), new RowTask(body, mid, to, grain));
+        }
+
+    }
+
+}
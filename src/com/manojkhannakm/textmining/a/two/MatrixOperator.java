@@ -0,0 +1,30 @@
+package com.manojkhannakm.textmining.a.two;
+
+/**
+ * Matrix seen only through its products
+ * <p>
+ * Vectors are plain double arrays and blocks of {@code width} vectors are flat row-major arrays, so row r of a
+ * block starts at {@code r * width}.
+ *
+ * @author Manoj Khanna
+ */
+
+interface MatrixOperator {
+
+    int getRowCount();
+
+    int getColumnCount();
+
+    /**
+     * y = A x, where x has {@link #getColumnCount()} rows and y has {@link #getRowCount()} rows, both
+     * {@code width} columns wide
+     */
+    void multiply(double[] x, int width, double[] y);
+
+    /**
+     * y = A^T x, where x has {@link #getRowCount()} rows and y has {@link #getColumnCount()} rows, both
+     * {@code width} columns wide
+     */
+    void transposeMultiply(double[] x, int width, double[] y);
+
+}
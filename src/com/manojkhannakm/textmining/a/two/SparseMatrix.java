@@ -0,0 +1,281 @@
+package com.manojkhannakm.textmining.a.two;
+
+import java.util.Arrays;
+
+/**
+ * Compressed sparse column term-document matrix
+ * <p>
+ * Holds only the non-zero entries: column j (a document) owns the entries from {@code columnStarts[j]} to
+ * {@code columnStarts[j + 1]} of {@code rowIndices} and {@code values}, with row indices (term ids) ascending.
+ * Documents are appended one at a time through a {@link Builder}, so the matrix can be built in one streaming
+ * pass while the vocabulary is still growing. The products {@code A x} and {@code A^T x} walk the non-zeros
+ * once each, which is all an iterative SVD solver needs, and the block forms do the same for several vectors
+ * at a time. The builder also counts document and global term frequencies as columns are ended, so the raw
+ * counts can be replaced by a {@link TermWeighting} in place, without another pass over the corpus.
+ *
+ * @author Manoj Khanna
+ */
+
+class SparseMatrix implements MatrixOperator {
+
+    private final int rowCount, columnCount;
+    private final int[] columnStarts, rowIndices;
+    private final double[] values;
+
+    private SparseMatrix(int rowCount, int columnCount, int[] columnStarts, int[] rowIndices, double[] values) {
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.columnStarts = columnStarts;
+        this.rowIndices = rowIndices;
+        this.values = values;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public int getNonZeroCount() {
+        return columnStarts[columnCount];
+    }
+
+    /**
+     * Squared Frobenius norm, the sum of the squares of all entries
+     */
+    public double getSquaredNorm() {
+        double sum = 0.0;
+        for (int i = 0; i < columnStarts[columnCount]; i++) {
+            sum += values[i] * values[i];
+        }
+        return sum;
+    }
+
+    /**
+     * A^T A, the columnCount x columnCount matrix of dot products between columns, row-major
+     */
+    public double[] gram() {
+        double[] g = new double[columnCount * columnCount];
+        for (int j1 = 0; j1 < columnCount; j1++) {
+            for (int j2 = j1; j2 < columnCount; j2++) {
+                double sum = 0.0;
+                int i1 = columnStarts[j1], end1 = columnStarts[j1 + 1],
+                        i2 = columnStarts[j2], end2 = columnStarts[j2 + 1];
+                while (i1 < end1 && i2 < end2) {
+                    if (rowIndices[i1] < rowIndices[i2]) {
+                        i1++;
+                    } else if (rowIndices[i1] > rowIndices[i2]) {
+                        i2++;
+                    } else {
+                        sum += values[i1++] * values[i2++];
+                    }
+                }
+
+                g[j1 * columnCount + j2] = sum;
+                g[j2 * columnCount + j1] = sum;
+            }
+        }
+        return g;
+    }
+
+    /**
+     * Replaces every count in place by its weight under the scheme, given the statistics the builder collected
+     *
+     * @return the global weight of every row
+     */
+    public double[] weight(TermWeighting termWeighting, TermStatistics termStatistics) {
+        if (termStatistics.getDocumentCount() != columnCount) {
+            throw new IllegalArgumentException("Statistics must cover " + columnCount + " columns: "
+                    + termStatistics.getDocumentCount());
+        }
+
+        double[] globalWeights = termWeighting.globalWeights(termStatistics, rowCount);
+        double averageLength = termStatistics.getAverageLength();
+        for (int j = 0; j < columnCount; j++) {
+            double length = termStatistics.getDocumentLength(j);
+            for (int i = columnStarts[j]; i < columnStarts[j + 1]; i++) {
+                values[i] = termWeighting.local(values[i], length, averageLength) * globalWeights[rowIndices[i]];
+            }
+        }
+        return globalWeights;
+    }
+
+    public double get(int row, int column) {
+        int i = Arrays.binarySearch(rowIndices, columnStarts[column], columnStarts[column + 1], row);
+        return i >= 0 ? values[i] : 0.0;
+    }
+
+    public void multiply(double[] x, double[] y) {
+        Arrays.fill(y, 0, rowCount, 0.0);
+        for (int j = 0; j < columnCount; j++) {
+            double xj = x[j];
+            if (xj == 0.0) {
+                continue;
+            }
+
+            for (int i = columnStarts[j]; i < columnStarts[j + 1]; i++) {
+                y[rowIndices[i]] += values[i] * xj;
+            }
+        }
+    }
+
+    public void transposeMultiply(double[] x, double[] y) {
+        for (int j = 0; j < columnCount; j++) {
+            double sum = 0.0;
+            for (int i = columnStarts[j]; i < columnStarts[j + 1]; i++) {
+                sum += values[i] * x[rowIndices[i]];
+            }
+            y[j] = sum;
+        }
+    }
+
+    @Override
+    public void multiply(double[] x, int width, double[] y) {
+        Arrays.fill(y, 0, rowCount * width, 0.0);
+        for (int j = 0; j < columnCount; j++) {
+            int xOffset = j * width;
+            for (int i = columnStarts[j]; i < columnStarts[j + 1]; i++) {
+                double value = values[i];
+                int yOffset = rowIndices[i] * width;
+                for (int l = 0; l < width; l++) {
+                    y[yOffset + l] += value * x[xOffset + l];
+                }
+            }
+        }
+    }
+
+    @Override
+    public void transposeMultiply(double[] x, int width, double[] y) {
+        Arrays.fill(y, 0, columnCount * width, 0.0);
+        for (int j = 0; j < columnCount; j++) {
+            int yOffset = j * width;
+            for (int i = columnStarts[j]; i < columnStarts[j + 1]; i++) {
+                double value = values[i];
+                int xOffset = rowIndices[i] * width;
+                for (int l = 0; l < width; l++) {
+                    y[yOffset + l] += value * x[xOffset + l];
+                }
+            }
+        }
+    }
+
+    public double[][] toDense() {
+        double[][] a = new double[rowCount][columnCount];
+        for (int j = 0; j < columnCount; j++) {
+            for (int i = columnStarts[j]; i < columnStarts[j + 1]; i++) {
+                a[rowIndices[i]][j] = values[i];
+            }
+        }
+        return a;
+    }
+
+    public static class Builder {
+
+        private int columnCount, maxRow = -1;
+        private int[] columnStarts = new int[1024];
+        private int[] rowIndices = new int[4096];
+        private double[] values = new double[4096];
+        private int size, columnStart;
+        private final TermStatistics termStatistics = new TermStatistics();
+
+        public void add(int row, double value) {
+            if (row < 0) {
+                throw new IllegalArgumentException("Row must not be negative: " + row);
+            }
+
+            if (size == rowIndices.length) {
+                rowIndices = Arrays.copyOf(rowIndices, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+
+            rowIndices[size] = row;
+            values[size++] = value;
+            maxRow = Math.max(maxRow, row);
+        }
+
+        public void endColumn() {
+            sortColumn(columnStart, size);
+
+            int n = columnStart;
+            for (int i = columnStart; i < size; i++) {
+                if (n > columnStart && rowIndices[n - 1] == rowIndices[i]) {
+                    values[n - 1] += values[i];
+                } else {
+                    rowIndices[n] = rowIndices[i];
+                    values[n++] = values[i];
+                }
+            }
+            size = n;
+            termStatistics.addDocument(rowIndices, values, columnStart, size);
+
+            if (++columnCount == columnStarts.length) {
+                columnStarts = Arrays.copyOf(columnStarts, columnCount * 2);
+            }
+            columnStarts[columnCount] = size;
+            columnStart = size;
+        }
+
+        public int getColumnCount() {
+            return columnCount;
+        }
+
+        /**
+         * Counters of the columns ended so far, for weighting the built matrix
+         */
+        public TermStatistics getTermStatistics() {
+            return termStatistics;
+        }
+
+        public SparseMatrix build(int rowCount) {
+            if (size != columnStart) {
+                throw new IllegalStateException("Column not ended");
+            }
+
+            if (rowCount <= maxRow) {
+                throw new IllegalArgumentException("Row count must be greater than " + maxRow + ": " + rowCount);
+            }
+
+            return new SparseMatrix(rowCount, columnCount, Arrays.copyOf(columnStarts, columnCount + 1),
+                    Arrays.copyOf(rowIndices, size), Arrays.copyOf(values, size));
+        }
+
+        private void sortColumn(int from, int to) {
+            if (to - from > 16) {
+                long[] keys = new long[to - from];
+                for (int i = from; i < to; i++) {
+                    keys[i - from] = (long) rowIndices[i] << 32 | (i - from);
+                }
+                Arrays.sort(keys);
+
+                double[] columnValues = Arrays.copyOfRange(values, from, to);
+                for (int i = from; i < to; i++) {
+                    long key = keys[i - from];
+                    rowIndices[i] = (int) (key >>> 32);
+                    values[i] = columnValues[(int) key];
+                }
+                return;
+            }
+
+            for (int i = from + 1; i < to; i++) {
+                int row = rowIndices[i];
+                double value = values[i];
+
+                int j = i - 1;
+                while (j >= from && rowIndices[j] > row) {
+                    rowIndices[j + 1] = rowIndices[j];
+                    values[j + 1] = values[j];
+                    j--;
+                }
+
+                rowIndices[j + 1] = row;
+                values[j + 1] = value;
+            }
+        }
+
+    }
+
+}
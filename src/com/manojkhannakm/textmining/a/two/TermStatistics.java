@@ -0,0 +1,81 @@
+package com.manojkhannakm.textmining.a.two;
+
+import java.util.Arrays;
+
+/**
+ * Per-term and per-document counters of a term-document matrix
+ * <p>
+ * Filled one document at a time while the matrix is built, so a {@link TermWeighting} has everything it needs
+ * once the last document is added. Besides the document frequency and global frequency of every term, the sum
+ * of tf log tf over its documents is kept: the entropy of a term, sum p log p with p = tf / gf, equals
+ * (sum tf log tf) / gf - log gf, so it can be computed without another pass once gf is known.
+ *
+ * @author Manoj Khanna
+ */
+
+class TermStatistics {
+
+    private int documentCount;
+    private double totalLength;
+    private int[] documentFrequencies = new int[1024];
+    private double[] globalFrequencies = new double[1024],
+            countLogCounts = new double[1024],
+            documentLengths = new double[1024];
+
+    /**
+     * Counts the document whose distinct terms and counts are rows[from, to) and counts[from, to)
+     */
+    public void addDocument(int[] rows, double[] counts, int from, int to) {
+        double length = 0.0;
+        for (int i = from; i < to; i++) {
+            int row = rows[i];
+            if (row >= documentFrequencies.length) {
+                int capacity = Math.max(row + 1, documentFrequencies.length * 2);
+                documentFrequencies = Arrays.copyOf(documentFrequencies, capacity);
+                globalFrequencies = Arrays.copyOf(globalFrequencies, capacity);
+                countLogCounts = Arrays.copyOf(countLogCounts, capacity);
+            }
+
+            double count = counts[i];
+            documentFrequencies[row]++;
+            globalFrequencies[row] += count;
+            countLogCounts[row] += count > 0.0 ? count * Math.log(count) : 0.0;
+            length += count;
+        }
+
+        if (documentCount == documentLengths.length) {
+            documentLengths = Arrays.copyOf(documentLengths, documentCount * 2);
+        }
+        documentLengths[documentCount++] = length;
+        totalLength += length;
+    }
+
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    public double getAverageLength() {
+        return documentCount > 0 ? totalLength / documentCount : 0.0;
+    }
+
+    public double getDocumentLength(int document) {
+        return documentLengths[document];
+    }
+
+    public int getDocumentFrequency(int term) {
+        return term < documentFrequencies.length ? documentFrequencies[term] : 0;
+    }
+
+    public double getGlobalFrequency(int term) {
+        return term < globalFrequencies.length ? globalFrequencies[term] : 0.0;
+    }
+
+    /**
+     * sum p log p over the documents of the term, with p = tf / gf, or 0 for a term that never occurs
+     */
+    public double getEntropy(int term) {
+        double globalFrequency = getGlobalFrequency(term);
+        return globalFrequency > 0.0 ? countLogCounts[term] / globalFrequency - Math.log(globalFrequency) : 0.0;
+    }
+
+}
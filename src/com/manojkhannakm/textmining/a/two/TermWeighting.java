@@ -0,0 +1,98 @@
+package com.manojkhannakm.textmining.a.two;
+
+/**
+ * Weighting schemes for a term-document matrix of raw counts
+ * <p>
+ * Every scheme is a local weight of the count of a term in a document times a global weight of the term, both
+ * computed from {@link TermStatistics}, so a matrix can be weighted in place right after it is built.
+ *
+ * @author Manoj Khanna
+ */
+
+enum TermWeighting {
+
+    /**
+     * Raw counts
+     */
+    NONE {
+        @Override
+        public double local(double count, double length, double averageLength) {
+            return count;
+        }
+
+        @Override
+        public double global(TermStatistics termStatistics, int term) {
+            return 1.0;
+        }
+    },
+
+    /**
+     * tf log(N / df)
+     */
+    TF_IDF {
+        @Override
+        public double local(double count, double length, double averageLength) {
+            return count;
+        }
+
+        @Override
+        public double global(TermStatistics termStatistics, int term) {
+            int documentFrequency = termStatistics.getDocumentFrequency(term);
+            return documentFrequency > 0
+                    ? Math.log((double) termStatistics.getDocumentCount() / documentFrequency) : 0.0;
+        }
+    },
+
+    /**
+     * log(1 + tf) (1 + sum p log p / log N), the usual weighting for LSA
+     */
+    LOG_ENTROPY {
+        @Override
+        public double local(double count, double length, double averageLength) {
+            return Math.log1p(count);
+        }
+
+        @Override
+        public double global(TermStatistics termStatistics, int term) {
+            int documentCount = termStatistics.getDocumentCount();
+            return documentCount > 1
+                    ? 1.0 + termStatistics.getEntropy(term) / Math.log(documentCount) : 1.0;
+        }
+    },
+
+    /**
+     * Okapi BM25: tf saturated by k1 and normalized by document length through b, times the BM25 idf
+     */
+    BM25 {
+        private static final double K1 = 1.2, B = 0.75;
+
+        @Override
+        public double local(double count, double length, double averageLength) {
+            double norm = averageLength > 0.0 ? 1.0 - B + B * length / averageLength : 1.0;
+            return count * (K1 + 1.0) / (count + K1 * norm);
+        }
+
+        @Override
+        public double global(TermStatistics termStatistics, int term) {
+            double documentFrequency = termStatistics.getDocumentFrequency(term);
+            return Math.log(1.0 + (termStatistics.getDocumentCount() - documentFrequency + 0.5)
+                    / (documentFrequency + 0.5));
+        }
+    };
+
+    public abstract double local(double count, double length, double averageLength);
+
+    public abstract double global(TermStatistics termStatistics, int term);
+
+    /**
+     * Global weights of terms 0 to termCount - 1
+     */
+    public double[] globalWeights(TermStatistics termStatistics, int termCount) {
+        double[] weights = new double[termCount];
+        for (int i = 0; i < termCount; i++) {
+            weights[i] = global(termStatistics, i);
+        }
+        return weights;
+    }
+
+}
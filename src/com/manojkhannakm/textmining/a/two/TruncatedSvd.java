@@ -0,0 +1,260 @@
+package com.manojkhannakm.textmining.a.two;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Randomized truncated singular value decomposition
+ * <p>
+ * Computes only the top k singular triplets of a {@link MatrixOperator} using the randomized range finder of
+ * Halko, Martinsson and Tropp. The matrix is multiplied by a block of k + p random vectors, the result is
+ * orthonormalized into a basis Q of its range, and each power iteration refines Q with one product by A^T and
+ * one by A. The small matrix B = Q^T A is then decomposed exactly with one-sided Jacobi rotations.
+ * <p>
+ * The matrix is only touched through block products, so a sparse matrix is never densified and the work is
+ * O(nnz(A) (k + p) (2q + 2)) plus O((m + n) (k + p)^2). The oversampling p and the power iteration count q trade
+ * speed for accuracy. When k + p reaches min(m, n) the range is captured completely and the result matches
+ * the exact decomposition.
+ *
+ * @author Manoj Khanna
+ */
+
+class TruncatedSvd {
+
+    public static final int DEFAULT_OVERSAMPLING = 10;
+    public static final int DEFAULT_POWER_ITERATIONS = 2;
+
+    private static final long DEFAULT_SEED = 0x5eed;
+    private static final double EPSILON = 1.0e-12;
+    private static final int MAX_SWEEPS = 64;
+
+    private DenseMatrix u, vt;
+    private double[] singularValues;
+
+    public TruncatedSvd(MatrixOperator a, int rank) {
+        this(a, rank, DEFAULT_OVERSAMPLING, DEFAULT_POWER_ITERATIONS, DEFAULT_SEED);
+    }
+
+    public TruncatedSvd(MatrixOperator a, int rank, int oversampling, int powerIterations, long seed) {
+        int m = a.getRowCount(),
+                n = a.getColumnCount();
+        if (rank < 1 || rank > Math.min(m, n)) {
+            throw new IllegalArgumentException("Rank must be between 1 and " + Math.min(m, n) + ": " + rank);
+        }
+
+        if (oversampling < 0 || powerIterations < 0) {
+            throw new IllegalArgumentException("Oversampling and power iterations must not be negative");
+        }
+
+        int l = Math.min(rank + oversampling, Math.min(m, n));
+
+        Random random = new Random(seed);
+        double[] omega = new double[n * l];
+        for (int i = 0; i < omega.length; i++) {
+            omega[i] = random.nextGaussian();
+        }
+
+        double[] q = new double[m * l],
+                z = new double[n * l];
+        a.multiply(omega, l, q);
+        orthonormalize(q, m, l);
+
+        for (int i = 0; i < powerIterations; i++) {
+            a.transposeMultiply(q, l, z);
+            orthonormalize(z, n, l);
+            a.multiply(z, l, q);
+            orthonormalize(q, m, l);
+        }
+
+        // B = Q^T A is l x n, stored as its rows
+        a.transposeMultiply(q, l, z);
+        double[] b = new double[l * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < l; j++) {
+                b[j * n + i] = z[i * l + j];
+            }
+        }
+
+        double[] w = new double[l * l];
+        for (int i = 0; i < l; i++) {
+            w[i * l + i] = 1.0;
+        }
+        orthogonalizeRows(b, l, n, w);
+
+        double[] norms = new double[l];
+        Integer[] order = new Integer[l];
+        for (int i = 0; i < l; i++) {
+            norms[i] = Math.sqrt(MatrixKernels.dot(b, i * n, b, i * n, n));
+            order[i] = i;
+        }
+        Arrays.sort(order, (i, j) -> Double.compare(norms[j], norms[i]));
+
+        // B = W^T S V^T, so A ~ (Q W^T) S V^T
+        singularValues = new double[rank];
+        u = new DenseMatrix(m, rank);
+        vt = new DenseMatrix(rank, n);
+        double[] uData = u.getData(),
+                vtData = vt.getData();
+        for (int p = 0; p < rank; p++) {
+            int r = order[p];
+            double s = norms[r];
+            singularValues[p] = s;
+
+            for (int i = 0; i < m; i++) {
+                uData[i * rank + p] = MatrixKernels.dot(q, i * l, w, r * l, l);
+            }
+
+            if (s > 0.0) {
+                for (int j = 0; j < n; j++) {
+                    vtData[p * n + j] = b[r * n + j] / s;
+                }
+            }
+
+            fixSign(uData, m, rank, p, vtData, n);
+        }
+    }
+
+    public DenseMatrix getU() {
+        return u;
+    }
+
+    public double[] getSingularValues() {
+        return singularValues;
+    }
+
+    public DenseMatrix getVT() {
+        return vt;
+    }
+
+    public int getRank() {
+        return singularValues.length;
+    }
+
+    /**
+     * Orthonormalizes the columns of a row-major rows x width block with modified Gram-Schmidt, run twice for
+     * stability. Columns which turn out to be linearly dependent are set to zero.
+     */
+    static void orthonormalize(double[] x, int rows, int width) {
+        double[] norms = new double[width];
+        for (int j = 0; j < width; j++) {
+            for (int i = 0; i < rows; i++) {
+                norms[j] += x[i * width + j] * x[i * width + j];
+            }
+        }
+
+        orthonormalize(x, rows, width, norms);
+    }
+
+    /**
+     * Same as {@link #orthonormalize(double[], int, int)}, but a column counts as linearly dependent when what
+     * is left of it is negligible next to the given squared norm
+     */
+    static void orthonormalize(double[] x, int rows, int width, double[] norms) {
+        // Work on the transpose so that every column is one contiguous run
+        double[] t = new double[width * rows];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < width; j++) {
+                t[j * rows + i] = x[i * width + j];
+            }
+        }
+
+        for (int j = 0; j < width; j++) {
+            int jOffset = j * rows;
+            for (int pass = 0; pass < 2; pass++) {
+                for (int k = 0; k < j; k++) {
+                    int kOffset = k * rows;
+                    double projection = MatrixKernels.dot(t, jOffset, t, kOffset, rows);
+                    if (projection == 0.0) {
+                        continue;
+                    }
+
+                    for (int i = 0; i < rows; i++) {
+                        t[jOffset + i] -= projection * t[kOffset + i];
+                    }
+                }
+            }
+
+            double norm = Math.sqrt(MatrixKernels.dot(t, jOffset, t, jOffset, rows)),
+                    scale = norm > EPSILON * Math.sqrt(norms[j]) && norm > 0.0 ? 1.0 / norm : 0.0;
+            for (int i = 0; i < rows; i++) {
+                t[jOffset + i] *= scale;
+            }
+        }
+
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < width; j++) {
+                x[i * width + j] = t[j * rows + i];
+            }
+        }
+    }
+
+    /**
+     * Rotates pairs of rows of the row-major rows x columns matrix b until all rows are mutually orthogonal,
+     * applying the same rotations to the rows of w.
+     */
+    static void orthogonalizeRows(double[] b, int rows, int columns, double[] w) {
+        for (int sweep = 0; sweep < MAX_SWEEPS; sweep++) {
+            boolean rotated = false;
+            for (int p = 0; p < rows - 1; p++) {
+                for (int r = p + 1; r < rows; r++) {
+                    double alpha = MatrixKernels.dot(b, p * columns, b, p * columns, columns),
+                            beta = MatrixKernels.dot(b, r * columns, b, r * columns, columns),
+                            gamma = MatrixKernels.dot(b, p * columns, b, r * columns, columns);
+                    if (Math.abs(gamma) <= EPSILON * Math.sqrt(alpha * beta) || gamma == 0.0) {
+                        continue;
+                    }
+
+                    rotated = true;
+
+                    double zeta = (beta - alpha) / (2.0 * gamma),
+                            t = Math.signum(zeta) / (Math.abs(zeta) + Math.sqrt(1.0 + zeta * zeta));
+                    if (zeta == 0.0) {
+                        t = 1.0;
+                    }
+                    double c = 1.0 / Math.sqrt(1.0 + t * t),
+                            s = c * t;
+
+                    rotate(b, p * columns, r * columns, columns, c, s);
+                    rotate(w, p * rows, r * rows, rows, c, s);
+                }
+            }
+
+            if (!rotated) {
+                break;
+            }
+        }
+    }
+
+    private static void rotate(double[] x, int pOffset, int rOffset, int length, double c, double s) {
+        for (int i = 0; i < length; i++) {
+            double xp = x[pOffset + i],
+                    xr = x[rOffset + i];
+            x[pOffset + i] = c * xp - s * xr;
+            x[rOffset + i] = s * xp + c * xr;
+        }
+    }
+
+    /**
+     * Singular vectors are only defined up to sign, so the sign is chosen to make the largest component of each
+     * left singular vector positive, which keeps results stable between runs and solvers.
+     */
+    private static void fixSign(double[] u, int m, int rank, int p, double[] vt, int n) {
+        double max = 0.0;
+        for (int i = 0; i < m; i++) {
+            if (Math.abs(u[i * rank + p]) > Math.abs(max)) {
+                max = u[i * rank + p];
+            }
+        }
+
+        if (max < 0.0) {
+            for (int i = 0; i < m; i++) {
+                u[i * rank + p] = -u[i * rank + p];
+            }
+
+            for (int j = 0; j < n; j++) {
+                vt[p * n + j] = -vt[p * n + j];
+            }
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.manojkhannakm.textmining.a.two;
+
+import com.manojkhannakm.textmining.util.StopWordMatcher;
+import com.manojkhannakm.textmining.util.TermDictionary;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.SingularValueDecomposition;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * Checks {@link TruncatedSvd} against the exact decomposition of commons-math on res/a2/input.txt
+ * <p>
+ * Builds the weighted term-document matrix of the sentences like {@link LSA}, but with words lower-cased and
+ * filtered against the stop words instead of lemmatized, and reads k from the line after the sentences. For every
+ * power iteration count, with no oversampling and with the default one, compares the top k singular values and
+ * the sines of the largest principal angles between the spans of U_k and V_k and the exact ones. Without
+ * oversampling the tolerance for q power iterations is (s_k+1 / s_k)^(2q + 1), the rate at which the iterations
+ * shrink the error, and the default oversampling, which captures the whole range of this small matrix, must match
+ * to rounding. Prints every comparison and exits with status 1 if any is out of tolerance. The weighting is
+ * LOG_ENTROPY or the first argument.
+ *
+ * @author Manoj Khanna
+ */
+
+public class TruncatedSvdCheck {
+
+    private static final int[] POWER_ITERATIONS = {0, 1, 2, 4};
+    private static final double EXACT_TOLERANCE = 1.0e-9;
+
+    public static void main(String[] args) throws IOException {
+        TermWeighting termWeighting = args.length > 0
+                ? TermWeighting.valueOf(args[0].toUpperCase().replace('-', '_')) : TermWeighting.LOG_ENTROPY;
+
+        StopWordMatcher stopWordMatcher = StopWordMatcher.load("res/stop_words.txt");
+        TermDictionary termDictionary = new TermDictionary();
+        SparseMatrix.Builder aBuilder = new SparseMatrix.Builder();
+        int k;
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader("res/a2/input.txt"))) {
+            String line;
+            while ((line = bufferedReader.readLine()) != null && !line.isEmpty()) {
+                for (String s : line.toLowerCase().split("[^a-z]+")) {
+                    if (!s.isEmpty() && !stopWordMatcher.contains(s)) {
+                        aBuilder.add(termDictionary.add(s), 1.0);
+                    }
+                }
+                aBuilder.endColumn();
+            }
+
+            k = Integer.parseInt(bufferedReader.readLine().trim());
+        }
+
+        SparseMatrix a = aBuilder.build(termDictionary.size());
+        a.weight(termWeighting, aBuilder.getTermStatistics());
+        int m = a.getRowCount(),
+                n = a.getColumnCount();
+
+        SingularValueDecomposition exact = new SingularValueDecomposition(new Array2DRowRealMatrix(a.toDense(), false));
+        double[] exactValues = exact.getSingularValues();
+        RealMatrix exactU = exact.getU().getSubMatrix(0, m - 1, 0, k - 1),
+                exactV = exact.getV().getSubMatrix(0, n - 1, 0, k - 1);
+
+        System.out.format("%s weighted %dx%d matrix, k = %d\n", termWeighting, m, n, k);
+        for (int i = 0; i < Math.min(k + 1, exactValues.length); i++) {
+            System.out.format("  s%-3d %10.6f\n", i + 1, exactValues[i]);
+        }
+
+        System.out.println("");
+
+        double gapRatio = k < exactValues.length ? exactValues[k] / exactValues[k - 1] : 0.0;
+        boolean failed = false;
+        for (int oversampling : new int[]{0, TruncatedSvd.DEFAULT_OVERSAMPLING}) {
+            boolean fullRange = k + oversampling >= Math.min(m, n);
+            for (int powerIterations : POWER_ITERATIONS) {
+                TruncatedSvd svd = new TruncatedSvd(a, k, oversampling, powerIterations, 1);
+
+                double valueError = 0.0;
+                double[] values = svd.getSingularValues();
+                for (int i = 0; i < k; i++) {
+                    valueError = Math.max(valueError, Math.abs(values[i] - exactValues[i]) / exactValues[0]);
+                }
+
+                RealMatrix u = new Array2DRowRealMatrix(svd.getU().toArray(), false),
+                        v = new Array2DRowRealMatrix(svd.getVT().toArray(), false).transpose();
+                double uAngle = largestPrincipalSine(u, exactU),
+                        vAngle = largestPrincipalSine(v, exactV),
+                        tolerance = fullRange ? EXACT_TOLERANCE
+                                : Math.max(EXACT_TOLERANCE, Math.pow(gapRatio, 2 * powerIterations + 1));
+
+                boolean ok = valueError <= tolerance && uAngle <= tolerance && vAngle <= tolerance;
+                failed |= !ok;
+                System.out.format("p = %2d, q = %d: singular values %.2e, sin angle U %.2e, V %.2e, tolerance %.2e %s\n",
+                        oversampling, powerIterations, valueError, uAngle, vAngle, tolerance, ok ? "ok" : "FAILED");
+            }
+        }
+
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Sine of the largest principal angle between the spans of the orthonormal columns of x and y, the norm of the
+     * part of x outside the span of y, which unlike 1 - cos^2 keeps its precision for small angles
+     */
+    private static double largestPrincipalSine(RealMatrix x, RealMatrix y) {
+        RealMatrix residual = x.subtract(y.multiply(y.transpose().multiply(x)));
+        return new SingularValueDecomposition(residual).getNorm();
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.manojkhannakm.textmining.b.one;
+
+import com.manojkhannakm.textmining.util.StopWordMatcher;
+import com.manojkhannakm.textmining.util.TermDictionary;
+import edu.stanford.nlp.tagger.maxent.MaxentTagger;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+
+/**
+ * Trains an HMM on tagged and untagged halves of res/b1/large_input.txt
+ * <p>
+ * The first half of the sentences is tagged and counted with {@link StreamingHmmTrainer}, and the model is then
+ * re-estimated with {@link BaumWelchTrainer} on the second half as untagged text, split on whitespace and
+ * pre-processed like {@link HMM}. Runs at most 10 iterations or the first argument, stopping early when the
+ * log-likelihood improves by less than 1e-4 relatively, or the second argument. Prints the log-likelihood and time
+ * of every iteration.
+ *
+ * @author Manoj Khanna
+ */
+
+public class BaumWelchBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int maxIterations = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        double tolerance = args.length > 1 ? Double.parseDouble(args[1]) : 1.0e-4;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        ArrayList<String> lineList = new ArrayList<>();
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader("res/b1/large_input.txt"))) {
+            String line;
+            while ((line = bufferedReader.readLine()) != null && !line.isEmpty()) {
+                lineList.add(line);
+            }
+        }
+
+        int half = lineList.size() / 2;
+        StringBuilder stringBuilder = new StringBuilder();
+        for (String line : lineList.subList(0, half)) {
+            stringBuilder.append(line).append('\n');
+        }
+
+        long startTime = System.currentTimeMillis();
+        StopWordMatcher stopWordMatcher = StopWordMatcher.load("res/stop_words.txt");
+        StreamingHmmTrainer supervisedTrainer;
+        try (ParallelTagger tagger = new ParallelTagger(new MaxentTagger(MaxentTagger.DEFAULT_JAR_PATH), threads)) {
+            supervisedTrainer = new StreamingHmmTrainer(tagger, stopWordMatcher, null);
+            supervisedTrainer.train(new BufferedReader(new StringReader(stringBuilder.toString())));
+        }
+        HmmModel model = supervisedTrainer.toModel();
+        System.out.format("Trained supervised model on %d sentences in %.2fs\n", half, (System.currentTimeMillis() - startTime) / 1000.0f);
+
+        TermDictionary wordDictionary = supervisedTrainer.getWordDictionary();
+        ArrayList<int[]> sentenceList = new ArrayList<>();
+        long tokenCount = 0;
+        for (String line : lineList.subList(half, lineList.size())) {
+            ArrayList<Integer> idList = new ArrayList<>();
+            for (String s : line.toLowerCase().split("\\s+")) {
+                String w = s.replaceAll("[^a-z]", "");
+                if (!w.isEmpty() && !stopWordMatcher.contains(w)) {
+                    idList.add(wordDictionary.add(w));
+                }
+            }
+
+            int[] words = new int[idList.size()];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = idList.get(i);
+            }
+            sentenceList.add(words);
+            tokenCount += words.length;
+        }
+        System.out.format("Read %d untagged sentences with %d tokens, %d words new to the model\n",
+                sentenceList.size(), tokenCount, wordDictionary.size() - model.getWordCount());
+
+        System.out.println("");
+
+        double totalTokens = tokenCount;
+        startTime = System.currentTimeMillis();
+        HmmModel unsupervisedModel = new BaumWelchTrainer(threads).train(model, sentenceList, maxIterations, tolerance,
+                (iteration, logLikelihood, sentenceCount, time) -> System.out.format(
+                        "Iteration %2d: log-likelihood %.2f (%.4f per token) over %d sentences in %.2fs\n",
+                        iteration, logLikelihood, logLikelihood / totalTokens, sentenceCount, time / 1.0e9));
+
+        System.out.println("");
+
+        System.out.format("Trained unsupervised model with %d words and %d emissions in %.2fs\n",
+                unsupervisedModel.getWordCount(), unsupervisedModel.getEmissionTable().getNonZeroCount(),
+                (System.currentTimeMillis() - startTime) / 1000.0f);
+    }
+
+}
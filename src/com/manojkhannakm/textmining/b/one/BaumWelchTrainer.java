@@ -0,0 +1,398 @@
+package com.manojkhannakm.textmining.b.one;
+
+import com.manojkhannakm.textmining.util.TermDictionary;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Unsupervised HMM trainer with the Baum-Welch algorithm
+ * <p>
+ * Starts from a supervised {@link HmmModel} and re-estimates its probabilities on untagged sentences given as word
+ * ids of the model's word dictionary. Words the model has seen keep their tags from the {@link EmissionTable} as
+ * the only candidates, and words added to the dictionary after the model may take any tag, starting with the
+ * smallest probability the tag gives a known word. The E-step runs scaled forward-backward over the candidate tags
+ * of every sentence: the forward variables are normalized at every position and the scales give the
+ * log-likelihood, so nothing underflows. Sentences are split into shards counted by separate workers into their
+ * own expected count accumulators, which are merged pairwise as the tasks join, and the M-step normalizes the
+ * merged counts. A word with no expected count, such as a supervised word missing from the untagged sentences,
+ * keeps its emissions from the previous iteration and the other words of each tag share the rest of its mass, so
+ * no known word loses all its tags. Iterations stop after the maximum count or when the log-likelihood improves by
+ * less than the relative tolerance.
+ *
+ * @author Manoj Khanna
+ */
+
+class BaumWelchTrainer {
+
+    private static final int SHARDS_PER_THREAD = 4;
+
+    private final int parallelism;
+
+    private int tagCount, wordCount, maxLength;
+    private int[] wordStarts, tagIds;
+    private double[] a, pi, emissions;
+
+    public BaumWelchTrainer(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public HmmModel train(HmmModel model, List<int[]> sentenceList, int maxIterations, double tolerance,
+                          Listener listener) {
+        initialize(model);
+
+        maxLength = 1;
+        for (int[] words : sentenceList) {
+            for (int word : words) {
+                if (word < 0 || word >= wordCount) {
+                    throw new IllegalArgumentException("Word id out of range: " + word);
+                }
+            }
+            maxLength = Math.max(maxLength, words.length);
+        }
+
+        int grain = Math.max(1, sentenceList.size() / (parallelism * SHARDS_PER_THREAD));
+        double previousLogLikelihood = Double.NEGATIVE_INFINITY;
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (int iteration = 1; iteration <= maxIterations; iteration++) {
+                long startTime = System.nanoTime();
+
+                Counts counts = pool.invoke(new ExpectationTask(sentenceList, 0, sentenceList.size(), grain));
+                maximize(counts);
+
+                listener.onIteration(iteration, counts.logLikelihood, counts.sentenceCount, System.nanoTime() - startTime);
+
+                if (counts.logLikelihood - previousLogLikelihood < tolerance * Math.abs(previousLogLikelihood)) {
+                    break;
+                }
+                previousLogLikelihood = counts.logLikelihood;
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        for (int w = 0; w < wordCount; w++) {
+            double rowTotal = 0.0;
+            for (int c = wordStarts[w]; c < wordStarts[w + 1]; c++) {
+                rowTotal += emissions[c];
+            }
+
+            if (rowTotal == 0.0) {
+                throw new IllegalStateException("Word " + w + " has no emission left after training");
+            }
+        }
+
+        float[][] aMatrix = new float[tagCount][tagCount];
+        float[] piVector = new float[tagCount];
+        for (int s = 0; s < tagCount; s++) {
+            for (int t = 0; t < tagCount; t++) {
+                aMatrix[s][t] = (float) a[s * tagCount + t];
+            }
+            piVector[s] = (float) pi[s];
+        }
+
+        TermDictionary wordDictionary = model.getWordDictionary();
+        return new HmmModel(model.getTagDictionary(), wordDictionary, aMatrix,
+                EmissionTable.of(wordCount, tagCount, wordStarts, tagIds, emissions), piVector);
+    }
+
+    private void initialize(HmmModel model) {
+        EmissionTable emissionTable = model.getEmissionTable();
+        int knownCount = emissionTable.getWordCount();
+        tagCount = model.getTagCount();
+        wordCount = model.getWordDictionary().size();
+
+        a = new double[tagCount * tagCount];
+        pi = new double[tagCount];
+        for (int s = 0; s < tagCount; s++) {
+            for (int t = 0; t < tagCount; t++) {
+                a[s * tagCount + t] = Math.exp(model.logTransition(s, t));
+            }
+            pi[s] = Math.exp(model.logInitial(s));
+        }
+
+        double[] floors = new double[tagCount];
+        for (int c = 0; c < emissionTable.getNonZeroCount(); c++) {
+            int t = emissionTable.tagAt(c);
+            double p = Math.exp(emissionTable.logProbAt(c));
+            if (floors[t] == 0.0 || p < floors[t]) {
+                floors[t] = p;
+            }
+        }
+        for (int t = 0; t < tagCount; t++) {
+            if (floors[t] == 0.0) {
+                floors[t] = 1.0 / wordCount;
+            }
+        }
+
+        wordStarts = new int[wordCount + 1];
+        tagIds = new int[emissionTable.getNonZeroCount() + (wordCount - knownCount) * tagCount];
+        emissions = new double[tagIds.length];
+        int n = 0;
+        for (int w = 0; w < wordCount; w++) {
+            if (w < knownCount) {
+                for (int c = emissionTable.start(w); c < emissionTable.end(w); c++) {
+                    tagIds[n] = emissionTable.tagAt(c);
+                    emissions[n++] = Math.exp(emissionTable.logProbAt(c));
+                }
+            } else {
+                for (int t = 0; t < tagCount; t++) {
+                    tagIds[n] = t;
+                    emissions[n++] = floors[t];
+                }
+            }
+            wordStarts[w + 1] = n;
+        }
+
+        normalizeEmissions(emissions);
+    }
+
+    private void maximize(Counts counts) {
+        for (int s = 0; s < tagCount; s++) {
+            double total = 0.0;
+            for (int t = 0; t < tagCount; t++) {
+                total += counts.transitions[s * tagCount + t];
+            }
+
+            if (total > 0.0) {
+                for (int t = 0; t < tagCount; t++) {
+                    a[s * tagCount + t] = counts.transitions[s * tagCount + t] / total;
+                }
+            }
+        }
+
+        double total = 0.0;
+        for (int t = 0; t < tagCount; t++) {
+            total += counts.initials[t];
+        }
+        if (total > 0.0) {
+            for (int t = 0; t < tagCount; t++) {
+                pi[t] = counts.initials[t] / total;
+            }
+        }
+
+        normalizeEmissions(counts.emissions);
+    }
+
+    /**
+     * Replaces emissions by x normalized over the words of every tag. Words with no mass in x keep their emissions,
+     * the other words share what those leave of each tag, and tags with no mass in x stay as they are.
+     */
+    private void normalizeEmissions(double[] x) {
+        double[] tagTotals = new double[tagCount],
+                keptTotals = new double[tagCount];
+        boolean[] kept = new boolean[wordCount];
+        for (int w = 0; w < wordCount; w++) {
+            double rowTotal = 0.0;
+            for (int c = wordStarts[w]; c < wordStarts[w + 1]; c++) {
+                rowTotal += x[c];
+            }
+
+            kept[w] = rowTotal == 0.0;
+            for (int c = wordStarts[w]; c < wordStarts[w + 1]; c++) {
+                if (kept[w]) {
+                    keptTotals[tagIds[c]] += emissions[c];
+                } else {
+                    tagTotals[tagIds[c]] += x[c];
+                }
+            }
+        }
+
+        for (int w = 0; w < wordCount; w++) {
+            if (kept[w]) {
+                continue;
+            }
+
+            for (int c = wordStarts[w]; c < wordStarts[w + 1]; c++) {
+                int t = tagIds[c];
+                if (tagTotals[t] > 0.0) {
+                    emissions[c] = Math.max(0.0, 1.0 - keptTotals[t]) * x[c] / tagTotals[t];
+                }
+            }
+        }
+    }
+
+    public interface Listener {
+
+        void onIteration(int iteration, double logLikelihood, int sentenceCount, long time);
+
+    }
+
+    /**
+     * Expected counts of a shard of sentences
+     */
+    private class Counts {
+
+        private final double[] transitions = new double[tagCount * tagCount],
+                initials = new double[tagCount],
+                emissions = new double[tagIds.length];
+        private double logLikelihood;
+        private int sentenceCount;
+
+        private Counts merge(Counts counts) {
+            for (int i = 0; i < transitions.length; i++) {
+                transitions[i] += counts.transitions[i];
+            }
+            for (int i = 0; i < initials.length; i++) {
+                initials[i] += counts.initials[i];
+            }
+            for (int i = 0; i < emissions.length; i++) {
+                emissions[i] += counts.emissions[i];
+            }
+            logLikelihood += counts.logLikelihood;
+            sentenceCount += counts.sentenceCount;
+            return this;
+        }
+
+    }
+
+    private class ExpectationTask extends RecursiveTask<Counts> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<int[]> sentenceList;
+        private final int from, to, grain;
+
+        public ExpectationTask(List<int[]> sentenceList, int from, int to, int grain) {
+            this.sentenceList = sentenceList;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected Counts compute() {
+            if (to - from > grain) {
+                int mid = (from + to) >>> 1;
+                ExpectationTask leftTask = new ExpectationTask(sentenceList, from, mid, grain),
+                        rightTask = new ExpectationTask(sentenceList, mid, to, grain);
+                leftTask.fork();
+                Counts rightCounts = rightTask.compute();
+                return leftTask.join().merge(rightCounts);
+            }
+
+            Counts counts = new Counts();
+            double[] alpha = new double[maxLength * tagCount],
+                    beta = new double[alpha.length],
+                    scales = new double[maxLength];
+            for (int i = from; i < to; i++) {
+                int[] words = sentenceList.get(i);
+                if (words.length > 0 && forwardBackward(words, alpha, beta, scales, counts)) {
+                    counts.sentenceCount++;
+                }
+            }
+            return counts;
+        }
+
+        /**
+         * Adds the expected counts of the sentence, or returns false if it is impossible under the model
+         */
+        private boolean forwardBackward(int[] words, double[] alpha, double[] beta, double[] scales, Counts counts) {
+            int length = words.length;
+
+            double scale = 0.0;
+            for (int c = wordStarts[words[0]]; c < wordStarts[words[0] + 1]; c++) {
+                int t = tagIds[c];
+                alpha[t] = pi[t] * emissions[c];
+                scale += alpha[t];
+            }
+            if (scale == 0.0) {
+                return false;
+            }
+            scales[0] = scale;
+            for (int c = wordStarts[words[0]]; c < wordStarts[words[0] + 1]; c++) {
+                alpha[tagIds[c]] /= scale;
+            }
+
+            for (int i = 1; i < length; i++) {
+                int previous = (i - 1) * tagCount,
+                        current = i * tagCount,
+                        previousWord = words[i - 1],
+                        word = words[i];
+
+                scale = 0.0;
+                for (int c = wordStarts[word]; c < wordStarts[word + 1]; c++) {
+                    int t = tagIds[c];
+                    double sum = 0.0;
+                    for (int p = wordStarts[previousWord]; p < wordStarts[previousWord + 1]; p++) {
+                        int s = tagIds[p];
+                        sum += alpha[previous + s] * a[s * tagCount + t];
+                    }
+                    alpha[current + t] = sum * emissions[c];
+                    scale += alpha[current + t];
+                }
+                if (scale == 0.0) {
+                    return false;
+                }
+                scales[i] = scale;
+                for (int c = wordStarts[word]; c < wordStarts[word + 1]; c++) {
+                    alpha[current + tagIds[c]] /= scale;
+                }
+            }
+
+            int last = (length - 1) * tagCount;
+            for (int c = wordStarts[words[length - 1]]; c < wordStarts[words[length - 1] + 1]; c++) {
+                beta[last + tagIds[c]] = 1.0;
+            }
+            for (int i = length - 2; i >= 0; i--) {
+                int current = i * tagCount,
+                        next = (i + 1) * tagCount,
+                        word = words[i],
+                        nextWord = words[i + 1];
+                for (int c = wordStarts[word]; c < wordStarts[word + 1]; c++) {
+                    int s = tagIds[c];
+                    double sum = 0.0;
+                    for (int d = wordStarts[nextWord]; d < wordStarts[nextWord + 1]; d++) {
+                        int t = tagIds[d];
+                        sum += a[s * tagCount + t] * emissions[d] * beta[next + t];
+                    }
+                    beta[current + s] = sum / scales[i + 1];
+                }
+            }
+
+            for (int i = 0; i < length; i++) {
+                counts.logLikelihood += Math.log(scales[i]);
+            }
+
+            for (int c = wordStarts[words[0]]; c < wordStarts[words[0] + 1]; c++) {
+                int t = tagIds[c];
+                counts.initials[t] += alpha[t] * beta[t];
+            }
+
+            for (int i = 0; i < length; i++) {
+                int current = i * tagCount,
+                        word = words[i];
+                for (int c = wordStarts[word]; c < wordStarts[word + 1]; c++) {
+                    int t = tagIds[c];
+                    counts.emissions[c] += alpha[current + t] * beta[current + t];
+                }
+
+                if (i == length - 1) {
+                    break;
+                }
+
+                int next = (i + 1) * tagCount,
+                        nextWord = words[i + 1];
+                for (int c = wordStarts[word]; c < wordStarts[word + 1]; c++) {
+                    int s = tagIds[c];
+                    double weight = alpha[current + s] / scales[i + 1];
+                    if (weight == 0.0) {
+                        continue;
+                    }
+
+                    for (int d = wordStarts[nextWord]; d < wordStarts[nextWord + 1]; d++) {
+                        int t = tagIds[d];
+                        counts.transitions[s * tagCount + t] += weight * a[s * tagCount + t] * emissions[d]
+                                * beta[next + t];
+                    }
+                }
+            }
+            return true;
+        }
+
+    }
+
+}
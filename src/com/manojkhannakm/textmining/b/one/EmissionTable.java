@@ -0,0 +1,245 @@
+package com.manojkhannakm.textmining.b.one;
+
+import java.util.Arrays;
+
+/**
+ * Sparse log P(word | tag) table in compressed sparse row form
+ * <p>
+ * Most words occur with only one to three tags, so instead of a dense wordCount x tagCount matrix the table keeps, for
+ * each word id w, the tags it was seen with and their log-probabilities in {@code tagIds} and {@code logProbs} from
+ * {@code wordStarts[w]} to {@code wordStarts[w + 1]}, tags ascending. One extra row at index wordCount lists every tag
+ * with log-probability 0 and stands for unknown words and for words whose row is empty, so a decoder can always iterate
+ * just the candidate tags of a word and never gets a row without any. Counts are collected in a {@link Counter} first.
+ *
+ * @author Manoj Khanna
+ */
+
+class EmissionTable {
+
+    private final int wordCount, tagCount;
+    private final int[] wordStarts, tagIds;
+    private final float[] logProbs;
+
+    private EmissionTable(int wordCount, int tagCount, int[] wordStarts, int[] tagIds, float[] logProbs) {
+        this.wordCount = wordCount;
+        this.tagCount = tagCount;
+        this.wordStarts = wordStarts;
+        this.tagIds = tagIds;
+        this.logProbs = logProbs;
+    }
+
+    /**
+     * Normalizes the counts of every tag over the words it was seen with
+     */
+    public static EmissionTable of(Counter counter, int wordCount, int tagCount) {
+        long[] keys = counter.sortedKeys();
+
+        double[] tagTotals = new double[tagCount];
+        for (long key : keys) {
+            tagTotals[(int) key] += counter.get(key);
+        }
+
+        int[] wordStarts = new int[wordCount + 2],
+                tagIds = new int[keys.length + tagCount];
+        float[] logProbs = new float[tagIds.length];
+        for (int i = 0; i < keys.length; i++) {
+            int word = (int) (keys[i] >>> 32),
+                    tag = (int) keys[i];
+            if (word >= wordCount || tag >= tagCount) {
+                throw new IllegalArgumentException("Count out of range: word " + word + ", tag " + tag);
+            }
+
+            wordStarts[word + 1]++;
+            tagIds[i] = tag;
+            logProbs[i] = HmmModel.log(counter.get(keys[i]) / tagTotals[tag]);
+        }
+        for (int w = 0; w < wordCount; w++) {
+            wordStarts[w + 1] += wordStarts[w];
+        }
+
+        for (int t = 0; t < tagCount; t++) {
+            tagIds[keys.length + t] = t;
+        }
+        wordStarts[wordCount + 1] = tagIds.length;
+
+        return new EmissionTable(wordCount, tagCount, wordStarts, tagIds, logProbs);
+    }
+
+    /**
+     * Builds a table from probabilities in CSR form over word ids 0 to wordCount - 1, leaving out zeros
+     */
+    public static EmissionTable of(int wordCount, int tagCount, int[] wordStarts, int[] tagIds, double[] probs) {
+        int[] starts = new int[wordCount + 2],
+                ids = new int[wordStarts[wordCount] + tagCount];
+        float[] logProbs = new float[ids.length];
+        int n = 0;
+        for (int w = 0; w < wordCount; w++) {
+            for (int i = wordStarts[w]; i < wordStarts[w + 1]; i++) {
+                if (probs[i] > 0.0) {
+                    ids[n] = tagIds[i];
+                    logProbs[n++] = HmmModel.log(probs[i]);
+                }
+            }
+            starts[w + 1] = n;
+        }
+
+        for (int t = 0; t < tagCount; t++) {
+            ids[n] = t;
+            logProbs[n++] = 0.0f;
+        }
+        starts[wordCount + 1] = n;
+
+        return new EmissionTable(wordCount, tagCount, starts, Arrays.copyOf(ids, n), Arrays.copyOf(logProbs, n));
+    }
+
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    public int getTagCount() {
+        return tagCount;
+    }
+
+    public int getNonZeroCount() {
+        return wordStarts[wordCount];
+    }
+
+    /**
+     * Row of the word in the table, the unknown word row for -1, an id added to the dictionary after the table or a
+     * word left without any tag, so that every row returned has at least one candidate
+     */
+    public int row(int word) {
+        return word >= 0 && word < wordCount && wordStarts[word] < wordStarts[word + 1] ? word : wordCount;
+    }
+
+    public int start(int row) {
+        return wordStarts[row];
+    }
+
+    public int end(int row) {
+        return wordStarts[row + 1];
+    }
+
+    public int tagAt(int i) {
+        return tagIds[i];
+    }
+
+    public float logProbAt(int i) {
+        return logProbs[i];
+    }
+
+    public float logProb(int word, int tag) {
+        int row = row(word);
+        for (int i = wordStarts[row]; i < wordStarts[row + 1] && tagIds[i] <= tag; i++) {
+            if (tagIds[i] == tag) {
+                return logProbs[i];
+            }
+        }
+        return Float.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Counts of (word, tag) pairs in an open addressing hash table of packed long keys and int counts
+     */
+    public static class Counter {
+
+        private static final long EMPTY = -1L;
+
+        private long[] keys;
+        private int[] counts;
+        private int size;
+
+        public Counter() {
+            this(1024);
+        }
+
+        public Counter(int capacity) {
+            int tableSize = Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1) << 1;
+            keys = new long[tableSize];
+            counts = new int[tableSize];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        public void add(int word, int tag) {
+            add((long) word << 32 | tag, 1);
+        }
+
+        public void addAll(Counter counter) {
+            for (int i = 0; i < counter.keys.length; i++) {
+                if (counter.keys[i] != EMPTY) {
+                    add(counter.keys[i], counter.counts[i]);
+                }
+            }
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int get(int word, int tag) {
+            return get((long) word << 32 | tag);
+        }
+
+        private int get(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); keys[i] != EMPTY; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return counts[i];
+                }
+            }
+            return 0;
+        }
+
+        private void add(long key, int count) {
+            int mask = keys.length - 1,
+                    i = slot(key, mask);
+            while (keys[i] != EMPTY) {
+                if (keys[i] == key) {
+                    counts[i] += count;
+                    return;
+                }
+
+                i = (i + 1) & mask;
+            }
+
+            keys[i] = key;
+            counts[i] = count;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+        }
+
+        private long[] sortedKeys() {
+            long[] sortedKeys = new long[size];
+            int n = 0;
+            for (long key : keys) {
+                if (key != EMPTY) {
+                    sortedKeys[n++] = key;
+                }
+            }
+            Arrays.sort(sortedKeys);
+            return sortedKeys;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldCounts = counts;
+            keys = new long[oldKeys.length * 2];
+            counts = new int[oldKeys.length * 2];
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    add(oldKeys[i], oldCounts[i]);
+                }
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            long hash = key * 0x9e3779b97f4a7c15L;
+            return (int) (hash ^ hash >>> 32) & mask;
+        }
+
+    }
+
+}
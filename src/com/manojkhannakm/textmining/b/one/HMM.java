@@ -1,7 +1,7 @@
 package com.manojkhannakm.textmining.b.one;
 
-import edu.stanford.nlp.ling.CoreAnnotations;
-import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import com.manojkhannakm.textmining.util.StopWordMatcher;
+import com.manojkhannakm.textmining.util.TermDictionary;
 import edu.stanford.nlp.tagger.maxent.MaxentTagger;
 
 import java.io.*;
@@ -15,8 +15,8 @@ import java.util.*;
 
 public class HMM {
 
-    private static StanfordCoreNLP pipeline;
-    private static Trie stopWordTrie;
+    private static StopWordMatcher stopWordMatcher;
+    private static Lemmatizer lemmatizer;
 
     public static void main(String[] args) throws IOException {
         System.out.println("Reading input.txt...");
@@ -38,28 +38,27 @@ public class HMM {
         startTime = System.currentTimeMillis();
 
         MaxentTagger tagger = new MaxentTagger(MaxentTagger.DEFAULT_JAR_PATH);
+        System.out.format("Loaded tagger in %.2fs\n", (System.currentTimeMillis() - startTime) / 1000.0f);
 
-        for (int i = 0; i < lineList.size(); i++) {
-            lineList.set(i, tagger.tagString(lineList.get(i)));
+        startTime = System.currentTimeMillis();
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        try (ParallelTagger parallelTagger = new ParallelTagger(tagger, threads)) {
+            lineList = parallelTagger.tag(lineList);
         }
 
-        System.out.format("POS tagged sentences in %.2fs\n", (System.currentTimeMillis() - startTime) / 1000.0f);
+        float time = (System.currentTimeMillis() - startTime) / 1000.0f;
+        System.out.format("POS tagged sentences on %d threads in %.2fs (%.1f sentences/s)\n", threads, time, lineList.size() / Math.max(time, 0.001f));
 
         System.out.println("");
 
         System.out.println("Pre-processing sentences...");
         startTime = System.currentTimeMillis();
 
-        Properties properties = new Properties();
-        properties.setProperty("annotators", "tokenize, ssplit, pos, lemma");
-        pipeline = new StanfordCoreNLP(properties);
-
-        BufferedReader stopWordBufferedReader = new BufferedReader(new FileReader("res/stop_words.txt"));
-        stopWordTrie = new Trie();
-        while ((line = stopWordBufferedReader.readLine()) != null) {
-            stopWordTrie.add(line);
+        stopWordMatcher = StopWordMatcher.load("res/stop_words.txt");
+        boolean useLemma = args.length > 0 && Boolean.parseBoolean(args[0]);
+        if (useLemma) {
+            lemmatizer = new Lemmatizer();
         }
-        stopWordBufferedReader.close();
 
         ArrayList<Sentence> sentenceList = new ArrayList<>();
         BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter("res/b1/output.txt"));
@@ -70,199 +69,128 @@ public class HMM {
         }
         bufferedWriter.write("\n");
 
-        System.out.format("Pre-processed sentences in %.2fs\n", (System.currentTimeMillis() - startTime) / 1000.0f);
+        if (useLemma) {
+            System.out.format("Pre-processed sentences with %d cached lemmas in %.2fs\n", lemmatizer.getCacheSize(), (System.currentTimeMillis() - startTime) / 1000.0f);
+        } else {
+            System.out.format("Pre-processed sentences in %.2fs\n", (System.currentTimeMillis() - startTime) / 1000.0f);
+        }
 
         System.out.println("");
 
-        System.out.println("Calculating A matrix...");
+        System.out.println("Training model...");
 
         startTime = System.currentTimeMillis();
-        TreeSet<String> tagSet = new TreeSet<>();
+        TreeSet<String> tagSet = new TreeSet<>(),
+                wordSet = new TreeSet<>();
         for (Sentence sentence : sentenceList) {
             for (Word word : sentence.wordList) {
                 tagSet.add(word.t);
+                wordSet.add(word.w);
             }
         }
-        ArrayList<String> tagList = new ArrayList<>(tagSet);
-        int tagCount = tagSet.size();
-        HashMap<String, Integer> tagMap = new HashMap<>();
-        for (int i = 0; i < tagCount; i++) {
-            tagMap.put(tagList.get(i), i);
+        TermDictionary tagDictionary = new TermDictionary(tagSet.size()),
+                wordDictionary = new TermDictionary(wordSet.size());
+        for (String tag : tagSet) {
+            tagDictionary.add(tag);
         }
+        for (String w : wordSet) {
+            wordDictionary.add(w);
+        }
+        tagDictionary.freeze();
+        wordDictionary.freeze();
 
-        float[][] a = new float[tagCount][tagCount];
+        ArrayList<int[]> wordsList = new ArrayList<>(sentenceList.size()),
+                tagsList = new ArrayList<>(sentenceList.size());
         for (Sentence sentence : sentenceList) {
-            for (int i = 0; i < sentence.wordList.size() - 1; i++) {
-                Word word1 = sentence.wordList.get(i),
-                        word2 = sentence.wordList.get(i + 1);
-                a[tagMap.get(word1.t)][tagMap.get(word2.t)]++;
+            int[] words = new int[sentence.wordList.size()],
+                    tags = new int[sentence.wordList.size()];
+            for (int i = 0; i < words.length; i++) {
+                Word word = sentence.wordList.get(i);
+                words[i] = wordDictionary.get(word.w);
+                tags[i] = tagDictionary.get(word.t);
             }
+            wordsList.add(words);
+            tagsList.add(tags);
         }
-        for (int i = 0; i < tagCount; i++) {
-            int count = 0;
-            for (int j = 0; j < tagCount; j++) {
-                count += a[i][j];
-            }
 
-            for (int j = 0; j < tagCount; j++) {
-                a[i][j] /= count;
-            }
-        }
+        HmmModel model = new HmmTrainer(threads).train(tagDictionary, wordDictionary, wordsList, tagsList);
+        int tagCount = model.getTagCount(),
+                wordCount = model.getWordCount();
+
+        System.out.format("Trained model with %d tags, %d words and %d emissions on %d threads in %.2fs\n", tagCount, wordCount, model.getEmissionTable().getNonZeroCount(), threads, (System.currentTimeMillis() - startTime) / 1000.0f);
 
         bufferedWriter.write(String.format("%-14s", "A"));
-        for (String tag : tagList) {
+        for (String tag : tagSet) {
             bufferedWriter.write(String.format("%-7s", tag));
         }
         bufferedWriter.write("\n\n");
         for (int i = 0; i < tagCount; i++) {
-            bufferedWriter.write(String.format("%-14s", tagList.get(i)));
+            bufferedWriter.write(String.format("%-14s", model.getTag(i)));
             for (int j = 0; j < tagCount; j++) {
-                bufferedWriter.write(String.format("%-7.2f", a[i][j]));
+                bufferedWriter.write(String.format("%-7.2f", Math.exp(model.logTransition(i, j))));
             }
             bufferedWriter.write("\n\n");
         }
 
-        System.out.format("Calculated A matrix as %dx%d in %.2fs\n", tagCount, tagCount, (System.currentTimeMillis() - startTime) / 1000.0f);
-
-        System.out.println("");
-
-        System.out.println("Calculating B matrix...");
-
-        startTime = System.currentTimeMillis();
-        TreeSet<String> wordSet = new TreeSet<>();
-        for (Sentence sentence : sentenceList) {
-            for (Word word : sentence.wordList) {
-                wordSet.add(word.w);
-            }
-        }
-        ArrayList<String> wordList = new ArrayList<>(wordSet);
-        int wordCount = wordSet.size();
-        HashMap<String, Integer> wordMap = new HashMap<>();
-        for (int i = 0; i < wordCount; i++) {
-            wordMap.put(wordList.get(i), i);
-        }
-
-        float[][] b = new float[wordCount][tagCount];
-        for (Sentence sentence : sentenceList) {
-            for (Word word : sentence.wordList) {
-                b[wordMap.get(word.w)][tagMap.get(word.t)]++;
-            }
-        }
-        for (int i = 0; i < wordCount; i++) {
-            int count = 0;
-            for (int j = 0; j < tagCount; j++) {
-                count += b[i][j];
-            }
-
-            for (int j = 0; j < tagCount; j++) {
-                b[i][j] /= count;
-            }
-        }
-
         bufferedWriter.write(String.format("%-14s", "B"));
-        for (String tag : tagList) {
+        for (String tag : tagSet) {
             bufferedWriter.write(String.format("%-7s", tag));
         }
         bufferedWriter.write("\n\n");
         for (int i = 0; i < wordCount; i++) {
-            bufferedWriter.write(String.format("%-14s", wordList.get(i)));
+            bufferedWriter.write(String.format("%-14s", wordDictionary.getTerm(i)));
             for (int j = 0; j < tagCount; j++) {
-                bufferedWriter.write(String.format("%-7.2f", b[i][j]));
+                bufferedWriter.write(String.format("%-7.2f", Math.exp(model.logEmission(i, j))));
             }
             bufferedWriter.write("\n\n");
         }
 
-        System.out.format("Calculated B matrix as %dx%d in %.2fs\n", wordCount, tagCount, (System.currentTimeMillis() - startTime) / 1000.0f);
-
-        System.out.println("");
-
-        System.out.println("Calculating Pi matrix...");
-
-        startTime = System.currentTimeMillis();
-        float[] pi = new float[tagCount];
-        for (Sentence sentence : sentenceList) {
-            Word word = sentence.wordList.get(0);
-            pi[tagMap.get(word.t)]++;
-        }
-        int sentenceCount = sentenceList.size();
-        for (int i = 0; i < tagCount; i++) {
-            pi[i] /= sentenceCount;
-        }
-
         bufferedWriter.write(String.format("%-14s", "Pi"));
-        for (String tag : tagList) {
+        for (String tag : tagSet) {
             bufferedWriter.write(String.format("%-7s", tag));
         }
         bufferedWriter.write("\n\n");
         bufferedWriter.write(String.format("%-14s", ""));
         for (int i = 0; i < tagCount; i++) {
-            bufferedWriter.write(String.format("%-7.2f", pi[i]));
+            bufferedWriter.write(String.format("%-7.2f", Math.exp(model.logInitial(i))));
         }
         bufferedWriter.write("\n\n");
 
-        System.out.format("Calculated Pi matrix as 1x%d in %.2fs\n", tagCount, (System.currentTimeMillis() - startTime) / 1000.0f);
-
         Sentence sentence = new Sentence(tagger.tagString(bufferedReader.readLine()));
         bufferedWriter.write(sentence + "\n\n");
 
-        Word word = sentence.wordList.get(0);
-        float f = pi[tagMap.get(word.t)];
-        bufferedWriter.write(String.format("%.2f", f));
-        for (int i = 0; i < sentence.wordList.size() - 1; i++) {
-            Word word1 = sentence.wordList.get(i),
-                    word2 = sentence.wordList.get(i + 1);
-            float aij = a[tagMap.get(word1.t)][tagMap.get(word2.t)];
-            bufferedWriter.write(String.format(" * %.2f", aij));
-
-            f *= aij;
-        }
-        bufferedWriter.write(" = " + f);
-
-        bufferedReader.close();
-        bufferedWriter.close();
-    }
-
-    private static class Trie {
-
-        private Node rootNode = new Node();
-
-        public void add(String word) {
-            Node node = rootNode;
-            for (int i = 0; i < word.length(); i++) {
-                char c = word.charAt(i);
-                Node childNode = node.childNodeMap.get(c);
-                if (childNode == null) {
-                    childNode = new Node();
-                    node.childNodeMap.put(c, childNode);
-                }
-
-                node = childNode;
-            }
-
-            node.word = true;
-        }
-
-        public boolean contains(String word) {
-            Node node = rootNode;
-            for (int i = 0; i < word.length(); i++) {
-                Node childNode = node.childNodeMap.get(word.charAt(i));
-                if (childNode == null) {
-                    return false;
-                }
-
-                node = childNode;
+        int length = sentence.wordList.size();
+        int[] words = new int[length],
+                tags = new int[length];
+        boolean tagsKnown = true;
+        for (int i = 0; i < length; i++) {
+            Word word = sentence.wordList.get(i);
+            words[i] = model.getWordId(word.w);
+            tags[i] = model.getTagId(word.t);
+            tagsKnown &= tags[i] >= 0;
+        }
+
+        if (tagsKnown && length > 0) {
+            float f = model.logInitial(tags[0]);
+            bufferedWriter.write(String.format("%.2f", f));
+            for (int i = 0; i < length - 1; i++) {
+                float aij = model.logTransition(tags[i], tags[i + 1]);
+                bufferedWriter.write(String.format(" + %.2f", aij));
+
+                f += aij;
             }
-
-            return node.word;
+            bufferedWriter.write(" = " + f + "\n\n");
         }
 
-        private class Node {
-
-            private boolean word;
-            private TreeMap<Character, Node> childNodeMap = new TreeMap<>();
-
+        int[] viterbiTags = new int[length];
+        float logP = new ViterbiDecoder(model, length).decode(words, length, viterbiTags);
+        for (int i = 0; i < length; i++) {
+            bufferedWriter.write(new Word(sentence.wordList.get(i).w, model.getTag(viterbiTags[i])) + " ");
         }
+        bufferedWriter.write(String.format("\n\nlog P = %.4f\n", logP));
 
+        bufferedReader.close();
+        bufferedWriter.close();
     }
 
     private static class Word {
@@ -293,15 +221,8 @@ public class HMM {
                         .toLowerCase()
                         .replaceAll("[^a-z]", "");
 
-                if (!w.isEmpty()) {
-                    pipeline.process(w)
-                            .get(CoreAnnotations.SentencesAnnotation.class)
-                            .get(0).get(CoreAnnotations.TokensAnnotation.class)
-                            .get(0).get(CoreAnnotations.LemmaAnnotation.class);
-
-                    if (!stopWordTrie.contains(w)) {
-                        wordList.add(new Word(w, t));
-                    }
+                if (!w.isEmpty() && !stopWordMatcher.contains(w)) {
+                    wordList.add(new Word(lemmatizer != null ? lemmatizer.lemma(w, t) : w, t));
                 }
             }
         }
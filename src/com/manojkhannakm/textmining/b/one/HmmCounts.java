@@ -0,0 +1,125 @@
+package com.manojkhannakm.textmining.b.one;
+
+import com.manojkhannakm.textmining.util.TermDictionary;
+
+import java.util.Arrays;
+
+/**
+ * Supervised HMM counts over tag and word ids
+ * <p>
+ * Transition and initial tag counts live in primitive int arrays and emission counts in an
+ * {@link EmissionTable.Counter}, so counting a tagged sentence is a few array increments with no boxing and no map
+ * lookups by string. The tag tables grow as higher tag ids come along. Counts of separate shards of a corpus can be
+ * merged, and {@link #toModel(TermDictionary, TermDictionary)} normalizes them into probabilities.
+ *
+ * @author Manoj Khanna
+ */
+
+class HmmCounts {
+
+    private int tagCapacity;
+    private int[] transitions, initials;
+    private final EmissionTable.Counter emissionCounter = new EmissionTable.Counter();
+    private int sentenceCount;
+    private long tokenCount;
+
+    public HmmCounts(int tagCapacity) {
+        this.tagCapacity = Math.max(tagCapacity, 1);
+        transitions = new int[this.tagCapacity * this.tagCapacity];
+        initials = new int[this.tagCapacity];
+    }
+
+    /**
+     * Counts the sentence with word ids words[0, length) and tag ids tags[0, length)
+     */
+    public void addSentence(int[] words, int[] tags, int length) {
+        if (length == 0) {
+            return;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (tags[i] >= tagCapacity) {
+                grow(tags[i] + 1);
+            }
+        }
+
+        initials[tags[0]]++;
+        emissionCounter.add(words[0], tags[0]);
+        for (int i = 1; i < length; i++) {
+            transitions[tags[i - 1] * tagCapacity + tags[i]]++;
+            emissionCounter.add(words[i], tags[i]);
+        }
+
+        sentenceCount++;
+        tokenCount += length;
+    }
+
+    public HmmCounts merge(HmmCounts counts) {
+        if (counts.tagCapacity > tagCapacity) {
+            grow(counts.tagCapacity);
+        }
+
+        for (int i = 0; i < counts.tagCapacity; i++) {
+            for (int j = 0; j < counts.tagCapacity; j++) {
+                transitions[i * tagCapacity + j] += counts.transitions[i * counts.tagCapacity + j];
+            }
+            initials[i] += counts.initials[i];
+        }
+        emissionCounter.addAll(counts.emissionCounter);
+
+        sentenceCount += counts.sentenceCount;
+        tokenCount += counts.tokenCount;
+        return this;
+    }
+
+    public int getSentenceCount() {
+        return sentenceCount;
+    }
+
+    public long getTokenCount() {
+        return tokenCount;
+    }
+
+    public int getTransitionCount(int from, int to) {
+        return from < tagCapacity && to < tagCapacity ? transitions[from * tagCapacity + to] : 0;
+    }
+
+    public int getInitialCount(int tag) {
+        return tag < tagCapacity ? initials[tag] : 0;
+    }
+
+    /**
+     * Model with the maximum likelihood probabilities of the counts, for the tags and words of the dictionaries
+     */
+    public HmmModel toModel(TermDictionary tagDictionary, TermDictionary wordDictionary) {
+        int tagCount = tagDictionary.size();
+        float[][] a = new float[tagCount][tagCount];
+        float[] pi = new float[tagCount];
+        for (int i = 0; i < tagCount; i++) {
+            long total = 0;
+            for (int j = 0; j < tagCount; j++) {
+                total += getTransitionCount(i, j);
+            }
+
+            for (int j = 0; j < tagCount; j++) {
+                a[i][j] = total > 0 ? (float) getTransitionCount(i, j) / total : 0.0f;
+            }
+            pi[i] = sentenceCount > 0 ? (float) getInitialCount(i) / sentenceCount : 0.0f;
+        }
+
+        return new HmmModel(tagDictionary, wordDictionary, a,
+                EmissionTable.of(emissionCounter, wordDictionary.size(), tagCount), pi);
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, tagCapacity * 2);
+        int[] grownTransitions = new int[capacity * capacity];
+        for (int i = 0; i < tagCapacity; i++) {
+            System.arraycopy(transitions, i * tagCapacity, grownTransitions, i * capacity, tagCapacity);
+        }
+        transitions = grownTransitions;
+        initials = Arrays.copyOf(initials, capacity);
+        tagCapacity = capacity;
+    }
+
+}
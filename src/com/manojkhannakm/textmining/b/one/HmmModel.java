@@ -0,0 +1,128 @@
+package com.manojkhannakm.textmining.b.one;
+
+import com.manojkhannakm.textmining.util.TermDictionary;
+
+/**
+ * Trained HMM part-of-speech model in log space
+ * <p>
+ * Holds log P(tag | previous tag) and log P(first tag) as flat float arrays and log P(word | tag) as a sparse
+ * {@link EmissionTable}, indexed by the ids of a tag and a word dictionary, so decoding adds log-probabilities
+ * instead of multiplying probabilities that underflow on long sentences. Impossible events get negative infinity.
+ *
+ * @author Manoj Khanna
+ */
+
+class HmmModel {
+
+    private final TermDictionary tagDictionary, wordDictionary;
+    private final int tagCount, wordCount;
+    private final float[] logA, logPi;
+    private final EmissionTable emissionTable;
+
+    /**
+     * Builds a model from probabilities a[i][j] = P(tag j | tag i) and pi[t] = P(first tag t) and an emission
+     * table, indexed by the ids of the dictionaries
+     */
+    public HmmModel(TermDictionary tagDictionary, TermDictionary wordDictionary, float[][] a, EmissionTable emissionTable,
+                    float[] pi) {
+        this.tagDictionary = tagDictionary;
+        this.wordDictionary = wordDictionary;
+        tagCount = tagDictionary.size();
+        wordCount = wordDictionary.size();
+
+        logA = new float[tagCount * tagCount];
+        for (int i = 0; i < tagCount; i++) {
+            for (int j = 0; j < tagCount; j++) {
+                logA[i * tagCount + j] = log(a[i][j]);
+            }
+        }
+
+        if (emissionTable.getWordCount() != wordCount || emissionTable.getTagCount() != tagCount) {
+            throw new IllegalArgumentException("Emission table must be " + wordCount + "x" + tagCount);
+        }
+        this.emissionTable = emissionTable;
+
+        logPi = new float[tagCount];
+        for (int t = 0; t < tagCount; t++) {
+            logPi[t] = log(pi[t]);
+        }
+    }
+
+    static float log(double p) {
+        return p > 0.0 ? (float) Math.log(p) : Float.NEGATIVE_INFINITY;
+    }
+
+    public int getTagCount() {
+        return tagCount;
+    }
+
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    public TermDictionary getTagDictionary() {
+        return tagDictionary;
+    }
+
+    public TermDictionary getWordDictionary() {
+        return wordDictionary;
+    }
+
+    public int getTagId(String tag) {
+        return tagDictionary.get(tag);
+    }
+
+    public String getTag(int id) {
+        return tagDictionary.getTerm(id);
+    }
+
+    /**
+     * Id of the word, or -1 for a word not seen in training
+     */
+    public int getWordId(String word) {
+        return wordDictionary.get(word);
+    }
+
+    public float logTransition(int from, int to) {
+        return logA[from * tagCount + to];
+    }
+
+    /**
+     * log P(word | tag), or 0 for every tag when the word is unknown, so that only the transitions decide
+     */
+    public float logEmission(int word, int tag) {
+        return emissionTable.logProb(word, tag);
+    }
+
+    public float logInitial(int tag) {
+        return logPi[tag];
+    }
+
+    /**
+     * log P of the tag sequence and the words, the sum of the initial, transition and emission terms
+     */
+    public float score(int[] words, int[] tags, int length) {
+        if (length == 0) {
+            return 0.0f;
+        }
+
+        float score = logPi[tags[0]] + logEmission(words[0], tags[0]);
+        for (int i = 1; i < length; i++) {
+            score += logA[tags[i - 1] * tagCount + tags[i]] + logEmission(words[i], tags[i]);
+        }
+        return score;
+    }
+
+    public EmissionTable getEmissionTable() {
+        return emissionTable;
+    }
+
+    float[] getLogA() {
+        return logA;
+    }
+
+    float[] getLogPi() {
+        return logPi;
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.manojkhannakm.textmining.b.one;
+
+import com.manojkhannakm.textmining.util.TermDictionary;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork-join supervised HMM trainer
+ * <p>
+ * Sentences whose words and tags are already interned to ids are split into contiguous shards, and every shard is
+ * counted by a separate worker into its own {@link HmmCounts}. Partial counts are merged pairwise as the tasks join,
+ * and the merged counts are normalized into an {@link HmmModel} once at the end.
+ *
+ * @author Manoj Khanna
+ */
+
+class HmmTrainer {
+
+    private static final int SHARDS_PER_THREAD = 4;
+
+    private final int parallelism;
+
+    public HmmTrainer(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public HmmModel train(TermDictionary tagDictionary, TermDictionary wordDictionary, List<int[]> wordsList,
+                          List<int[]> tagsList) {
+        return count(wordsList, tagsList, tagDictionary.size()).toModel(tagDictionary, wordDictionary);
+    }
+
+    public HmmCounts count(List<int[]> wordsList, List<int[]> tagsList, int tagCount) {
+        if (wordsList.size() != tagsList.size()) {
+            throw new IllegalArgumentException("Words and tags must have the same number of sentences: "
+                    + wordsList.size() + ", " + tagsList.size());
+        }
+
+        int grain = Math.max(1, wordsList.size() / (parallelism * SHARDS_PER_THREAD));
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(new CountTask(wordsList, tagsList, tagCount, 0, wordsList.size(), grain));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static class CountTask extends RecursiveTask<HmmCounts> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<int[]> wordsList, tagsList;
+        private final int tagCount, from, to, grain;
+
+        public CountTask(List<int[]> wordsList, List<int[]> tagsList, int tagCount, int from, int to, int grain) {
+            this.wordsList = wordsList;
+            this.tagsList = tagsList;
+            this.tagCount = tagCount;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected HmmCounts compute() {
+            if (to - from > grain) {
+                int mid = (from + to) >>> 1;
+                CountTask leftTask = new CountTask(wordsList, tagsList, tagCount, from, mid, grain),
+                        rightTask = new CountTask(wordsList, tagsList, tagCount, mid, to, grain);
+                leftTask.fork();
+                HmmCounts rightCounts = rightTask.compute();
+                return leftTask.join().merge(rightCounts);
+            }
+
+            HmmCounts counts = new HmmCounts(tagCount);
+            for (int i = from; i < to; i++) {
+                int[] words = wordsList.get(i);
+                counts.addSentence(words, tagsList.get(i), words.length);
+            }
+            return counts;
+        }
+
+    }
+
+}
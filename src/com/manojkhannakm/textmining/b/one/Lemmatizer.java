@@ -0,0 +1,30 @@
+package com.manojkhannakm.textmining.b.one;
+
+import edu.stanford.nlp.process.Morphology;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caching lemmatizer for tagged words
+ * <p>
+ * Words come with the tag the {@link edu.stanford.nlp.tagger.maxent.MaxentTagger} already gave them, so the lemma is
+ * a morphology lookup with {@link Morphology#lemmaStatic(String, String)} instead of a run of a whole CoreNLP
+ * pipeline. Lemmas are cached by word and tag, so each distinct pair is looked up once. Instances are safe to share
+ * between threads.
+ *
+ * @author Manoj Khanna
+ */
+
+class Lemmatizer {
+
+    private final ConcurrentHashMap<String, String> cache = new ConcurrentHashMap<>();
+
+    public String lemma(String word, String tag) {
+        return cache.computeIfAbsent(word + '_' + tag, key -> Morphology.lemmaStatic(word, tag));
+    }
+
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.manojkhannakm.textmining.b.one;
+
+import edu.stanford.nlp.tagger.maxent.MaxentTagger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork-join POS tagger
+ * <p>
+ * Splits the sentences into contiguous shards tagged by separate workers of a fixed pool. The workers share one
+ * {@link MaxentTagger}, which is safe for concurrent tagging, so the model is loaded once. Each worker writes its
+ * tagged sentences to their own positions of the result, so the output is in input order no matter which shard
+ * finishes first. The pool is created with the tagger and reused by every call to {@link #tag(List)}, so tagging a
+ * corpus chunk by chunk does not start new threads per chunk; {@link #close()} shuts it down.
+ *
+ * @author Manoj Khanna
+ */
+
+class ParallelTagger implements AutoCloseable {
+
+    private static final int SHARDS_PER_THREAD = 8;
+
+    private final MaxentTagger tagger;
+    private final int parallelism;
+    private final ForkJoinPool pool;
+
+    public ParallelTagger(MaxentTagger tagger, int parallelism) {
+        this.tagger = tagger;
+        this.parallelism = parallelism;
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    public ArrayList<String> tag(List<String> sentenceList) {
+        String[] sentences = sentenceList.toArray(new String[sentenceList.size()]),
+                taggedSentences = new String[sentences.length];
+        int grain = Math.max(1, sentences.length / (parallelism * SHARDS_PER_THREAD));
+
+        pool.invoke(new TagTask(sentences, taggedSentences, 0, sentences.length, grain));
+        return new ArrayList<>(Arrays.asList(taggedSentences));
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    private class TagTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String[] sentences, taggedSentences;
+        private final int from, to, grain;
+
+        public TagTask(String[] sentences, String[] taggedSentences, int from, int to, int grain) {
+            this.sentences = sentences;
+            this.taggedSentences = taggedSentences;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > grain) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TagTask(sentences, taggedSentences, from, mid, grain),
+                        new TagTask(sentences, taggedSentences, mid, to, grain));
+                return;
+            }
+
+            for (int i = from; i < to; i++) {
+                taggedSentences[i] = tagger.tagString(sentences[i]);
+            }
+        }
+
+    }
+
+}
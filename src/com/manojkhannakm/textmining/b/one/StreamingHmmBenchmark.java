@@ -0,0 +1,53 @@
+package com.manojkhannakm.textmining.b.one;
+
+import com.manojkhannakm.textmining.util.StopWordMatcher;
+import edu.stanford.nlp.tagger.maxent.MaxentTagger;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * Trains an HMM with {@link StreamingHmmTrainer} in one pass over a corpus
+ * <p>
+ * Reads res/b1/large_input.txt or the file given as the first argument up to its first empty line, lemmatizing
+ * the words if the second argument is true, and prints the time, the tokens counted per second, the size of the
+ * model and the heap in use after training.
+ *
+ * @author Manoj Khanna
+ */
+
+public class StreamingHmmBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        String inputFileName = args.length > 0 ? args[0] : "res/b1/large_input.txt";
+        boolean useLemma = args.length > 1 && Boolean.parseBoolean(args[1]);
+
+        long startTime = System.currentTimeMillis();
+        StreamingHmmTrainer trainer;
+        try (ParallelTagger tagger = new ParallelTagger(new MaxentTagger(MaxentTagger.DEFAULT_JAR_PATH),
+                Runtime.getRuntime().availableProcessors())) {
+            System.out.format("Loaded tagger in %.2fs\n", (System.currentTimeMillis() - startTime) / 1000.0f);
+
+            startTime = System.currentTimeMillis();
+            trainer = new StreamingHmmTrainer(tagger, StopWordMatcher.load("res/stop_words.txt"),
+                    useLemma ? new Lemmatizer() : null);
+            try (BufferedReader bufferedReader = new BufferedReader(new FileReader(inputFileName))) {
+                trainer.train(bufferedReader);
+            }
+        }
+        HmmModel model = trainer.toModel();
+        float time = (System.currentTimeMillis() - startTime) / 1000.0f;
+
+        long tokenCount = trainer.getCounts().getTokenCount();
+        System.out.format("Trained on %d sentences and %d tokens in %.2fs (%.0f tokens/s)\n",
+                trainer.getLineCount(), tokenCount, time, tokenCount / Math.max(time, 0.001f));
+        System.out.format("Model has %d tags, %d words and %d emissions\n", model.getTagCount(), model.getWordCount(),
+                model.getEmissionTable().getNonZeroCount());
+
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        System.out.format("Heap in use %.1fMB\n", (runtime.totalMemory() - runtime.freeMemory()) / (1024.0f * 1024.0f));
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.manojkhannakm.textmining.b.one;
+
+import com.manojkhannakm.textmining.util.StopWordMatcher;
+import com.manojkhannakm.textmining.util.TermDictionary;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * Single-pass supervised HMM trainer
+ * <p>
+ * Reads raw sentences, one per line, in chunks, tags every chunk with a {@link ParallelTagger}, pre-processes the
+ * tagged words like {@link HMM} (lower-cased, letters only, no stop words, optionally lemmatized), interns them into
+ * tag and word dictionaries that grow as new ones come along and counts them into one {@link HmmCounts}. A chunk is
+ * dropped as soon as it is counted and sentences are interned into reused id buffers, so memory is bounded by the
+ * chunk size and the model, not by the corpus. Ids are assigned in order of first occurrence. Every chunk goes
+ * through the same tagger and its pool, which the caller closes when training is done.
+ *
+ * @author Manoj Khanna
+ */
+
+class StreamingHmmTrainer {
+
+    private static final int CHUNK_SIZE = 1024;
+    private static final Pattern NON_LETTERS = Pattern.compile("[^a-z]");
+
+    private final ParallelTagger tagger;
+    private final StopWordMatcher stopWordMatcher;
+    private final Lemmatizer lemmatizer;
+    private final TermDictionary tagDictionary = new TermDictionary(64),
+            wordDictionary = new TermDictionary();
+    private final HmmCounts counts = new HmmCounts(64);
+    private int[] words = new int[64],
+            tags = new int[64];
+    private long lineCount;
+
+    /**
+     * @param lemmatizer lemmatizer for the words, or null to keep them as they are
+     */
+    public StreamingHmmTrainer(ParallelTagger tagger, StopWordMatcher stopWordMatcher, Lemmatizer lemmatizer) {
+        this.tagger = tagger;
+        this.stopWordMatcher = stopWordMatcher;
+        this.lemmatizer = lemmatizer;
+    }
+
+    /**
+     * Trains on the lines of the reader up to the end or the first empty line, which is consumed
+     */
+    public void train(BufferedReader bufferedReader) throws IOException {
+        ArrayList<String> chunk = new ArrayList<>(CHUNK_SIZE);
+        String line;
+        while ((line = bufferedReader.readLine()) != null && !line.isEmpty()) {
+            chunk.add(line);
+            if (chunk.size() == CHUNK_SIZE) {
+                count(chunk);
+                chunk.clear();
+            }
+        }
+        count(chunk);
+    }
+
+    public long getLineCount() {
+        return lineCount;
+    }
+
+    public HmmCounts getCounts() {
+        return counts;
+    }
+
+    public TermDictionary getTagDictionary() {
+        return tagDictionary;
+    }
+
+    public TermDictionary getWordDictionary() {
+        return wordDictionary;
+    }
+
+    /**
+     * Model of everything counted so far
+     */
+    public HmmModel toModel() {
+        return counts.toModel(tagDictionary, wordDictionary);
+    }
+
+    private void count(ArrayList<String> chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        for (String s : tagger.tag(chunk)) {
+            int length = 0;
+            for (String w : s.split(" ")) {
+                int i = w.lastIndexOf('_');
+                if (i < 0) {
+                    continue;
+                }
+
+                String t = w.substring(i + 1);
+                w = NON_LETTERS.matcher(w.substring(0, i).toLowerCase()).replaceAll("");
+
+                if (!w.isEmpty() && !stopWordMatcher.contains(w)) {
+                    if (length == words.length) {
+                        words = Arrays.copyOf(words, length * 2);
+                        tags = Arrays.copyOf(tags, length * 2);
+                    }
+
+                    words[length] = wordDictionary.add(lemmatizer != null ? lemmatizer.lemma(w, t) : w);
+                    tags[length++] = tagDictionary.add(t);
+                }
+            }
+
+            counts.addSentence(words, tags, length);
+        }
+        lineCount += chunk.size();
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.manojkhannakm.textmining.b.one;
+
+import com.manojkhannakm.textmining.util.StopWordMatcher;
+import com.manojkhannakm.textmining.util.TermDictionary;
+import edu.stanford.nlp.tagger.maxent.MaxentTagger;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Measures {@link ViterbiDecoder} throughput on res/b1/large_input.txt
+ * <p>
+ * Tags the sentences up to the first empty line with the {@link MaxentTagger}, pre-processes them like {@link HMM}
+ * (lower-cased, letters only, no stop words), counts a model from them and then decodes every sentence with one
+ * decoder, as many times as the first argument says (3 by default) after one warm-up pass. The warm-up pass counts
+ * how often Viterbi agrees with the tagger, so the timed passes measure decoding only. Prints the tokens decoded per
+ * second and the agreement.
+ *
+ * @author Manoj Khanna
+ */
+
+public class ViterbiBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int passes = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+
+        ArrayList<String> lineList = new ArrayList<>();
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader("res/b1/large_input.txt"))) {
+            String line;
+            while ((line = bufferedReader.readLine()) != null && !line.isEmpty()) {
+                lineList.add(line);
+            }
+        }
+
+        long startTime = System.currentTimeMillis();
+        try (ParallelTagger tagger = new ParallelTagger(new MaxentTagger(MaxentTagger.DEFAULT_JAR_PATH),
+                Runtime.getRuntime().availableProcessors())) {
+            lineList = tagger.tag(lineList);
+        }
+        System.out.format("Tagged %d sentences in %.2fs\n", lineList.size(), (System.currentTimeMillis() - startTime) / 1000.0f);
+
+        StopWordMatcher stopWordMatcher = StopWordMatcher.load("res/stop_words.txt");
+        TermDictionary tagDictionary = new TermDictionary(64),
+                wordDictionary = new TermDictionary();
+        ArrayList<int[]> wordsList = new ArrayList<>(),
+                tagsList = new ArrayList<>();
+        int maxLength = 0;
+        long tokenCount = 0;
+        for (String line : lineList) {
+            ArrayList<Integer> wordIdList = new ArrayList<>(),
+                    tagIdList = new ArrayList<>();
+            for (String w : line.split(" ")) {
+                int i = w.lastIndexOf('_');
+                String t = w.substring(i + 1);
+                w = w.substring(0, Math.max(i, 0))
+                        .toLowerCase()
+                        .replaceAll("[^a-z]", "");
+
+                if (!w.isEmpty() && !stopWordMatcher.contains(w)) {
+                    wordIdList.add(wordDictionary.add(w));
+                    tagIdList.add(tagDictionary.add(t));
+                }
+            }
+
+            if (wordIdList.isEmpty()) {
+                continue;
+            }
+
+            int[] words = new int[wordIdList.size()],
+                    tags = new int[tagIdList.size()];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = wordIdList.get(i);
+                tags[i] = tagIdList.get(i);
+            }
+            wordsList.add(words);
+            tagsList.add(tags);
+            maxLength = Math.max(maxLength, words.length);
+            tokenCount += words.length;
+        }
+        tagDictionary.freeze();
+        wordDictionary.freeze();
+
+        HmmModel model = new HmmTrainer(Runtime.getRuntime().availableProcessors()).train(tagDictionary, wordDictionary, wordsList, tagsList);
+        System.out.format("Counted model with %d tags and %d words from %d tokens\n", model.getTagCount(), model.getWordCount(), tokenCount);
+
+        ViterbiDecoder decoder = new ViterbiDecoder(model, maxLength);
+        int[] tags = new int[maxLength];
+        long correctCount = 0;
+        for (int j = 0; j < wordsList.size(); j++) {
+            int[] words = wordsList.get(j),
+                    taggerTags = tagsList.get(j);
+            decoder.decode(words, words.length, tags);
+            for (int i = 0; i < words.length; i++) {
+                if (tags[i] == taggerTags[i]) {
+                    correctCount++;
+                }
+            }
+        }
+
+        startTime = System.nanoTime();
+        for (int pass = 0; pass < passes; pass++) {
+            for (int[] words : wordsList) {
+                decoder.decode(words, words.length, tags);
+            }
+        }
+        double time = (System.nanoTime() - startTime) / 1.0e9;
+
+        System.out.format("Decoded %d tokens %d times in %.2fs (%.0f tokens/s), %.2f%% agree with the tagger\n",
+                tokenCount, passes, time, tokenCount * passes / time, 100.0 * correctCount / tokenCount);
+    }
+
+}
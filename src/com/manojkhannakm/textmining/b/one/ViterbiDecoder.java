@@ -0,0 +1,96 @@
+package com.manojkhannakm.textmining.b.one;
+
+/**
+ * Viterbi decoder over an {@link HmmModel}
+ * <p>
+ * Finds the most likely tag sequence of a sentence by dynamic programming over log-probabilities. Only the
+ * candidate tags of each word, its row of the {@link EmissionTable}, are scored against the candidate tags of the
+ * previous word, so a step costs O(k^2) for words with k tags instead of O(T^2). The trellis of best scores and
+ * the backpointers are flat arrays of length x tagCount that are allocated once for the longest sentence expected
+ * and reused, and grown only when a longer sentence comes along, so decoding a corpus does not allocate per
+ * sentence. Only the cells of candidate tags written for the current sentence are read, so nothing left over from
+ * an earlier sentence leaks into the result. A decoder is not safe to share between threads; use one per thread.
+ *
+ * @author Manoj Khanna
+ */
+
+class ViterbiDecoder {
+
+    private final HmmModel model;
+    private final int tagCount;
+    private float[] scores;
+    private int[] backpointers;
+
+    public ViterbiDecoder(HmmModel model, int maxLength) {
+        this.model = model;
+        tagCount = model.getTagCount();
+        scores = new float[Math.max(maxLength, 1) * tagCount];
+        backpointers = new int[scores.length];
+    }
+
+    /**
+     * Writes the most likely tags of words[0, length) to tags[0, length)
+     *
+     * @return the log-probability of the sentence along those tags, or negative infinity if it is impossible
+     */
+    public float decode(int[] words, int length, int[] tags) {
+        if (length == 0) {
+            return 0.0f;
+        }
+
+        if (length * tagCount > scores.length) {
+            scores = new float[length * tagCount];
+            backpointers = new int[scores.length];
+        }
+
+        float[] logA = model.getLogA(),
+                logPi = model.getLogPi();
+        EmissionTable emissionTable = model.getEmissionTable();
+
+        int row = emissionTable.row(words[0]);
+        for (int c = emissionTable.start(row); c < emissionTable.end(row); c++) {
+            int t = emissionTable.tagAt(c);
+            scores[t] = logPi[t] + emissionTable.logProbAt(c);
+        }
+
+        int previousRow = row;
+        for (int i = 1; i < length; i++) {
+            int previous = (i - 1) * tagCount,
+                    current = i * tagCount;
+            row = emissionTable.row(words[i]);
+            for (int c = emissionTable.start(row); c < emissionTable.end(row); c++) {
+                int t = emissionTable.tagAt(c);
+
+                float best = Float.NEGATIVE_INFINITY;
+                int bestTag = emissionTable.tagAt(emissionTable.start(previousRow));
+                for (int p = emissionTable.start(previousRow); p < emissionTable.end(previousRow); p++) {
+                    int s = emissionTable.tagAt(p);
+                    float score = scores[previous + s] + logA[s * tagCount + t];
+                    if (score > best) {
+                        best = score;
+                        bestTag = s;
+                    }
+                }
+
+                scores[current + t] = best + emissionTable.logProbAt(c);
+                backpointers[current + t] = bestTag;
+            }
+            previousRow = row;
+        }
+
+        int last = (length - 1) * tagCount,
+                bestTag = emissionTable.tagAt(emissionTable.start(row));
+        for (int c = emissionTable.start(row) + 1; c < emissionTable.end(row); c++) {
+            int t = emissionTable.tagAt(c);
+            if (scores[last + t] > scores[last + bestTag]) {
+                bestTag = t;
+            }
+        }
+        tags[length - 1] = bestTag;
+        for (int i = length - 1; i > 0; i--) {
+            tags[i - 1] = backpointers[i * tagCount + tags[i]];
+        }
+        return scores[last + bestTag];
+    }
+
+}
@@ -0,0 +1,162 @@
+package com.manojkhannakm.textmining.util;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable stop word matcher
+ * <p>
+ * The stop words are compiled into a trie whose transitions live in one flat int[] table with a row per state
+ * and a column per distinct character, so a lookup is one array load per character with no boxing and no
+ * allocation. Instances are safe to share between threads.
+ *
+ * @author Manoj Khanna
+ */
+
+public final class StopWordMatcher {
+
+    private final int[] charCodes;
+    private final char[] alphabet;
+    private final int[] transitions;
+    private final boolean[] finalStates;
+    private final int size;
+
+    public StopWordMatcher(Collection<String> words) {
+        int maxChar = 0;
+        boolean[] seen = new boolean[Character.MAX_VALUE + 1];
+        for (String word : words) {
+            for (int i = 0; i < word.length(); i++) {
+                char c = word.charAt(i);
+                seen[c] = true;
+                maxChar = Math.max(maxChar, c);
+            }
+        }
+
+        charCodes = new int[maxChar + 1];
+        Arrays.fill(charCodes, -1);
+        int alphabetSize = 0;
+        for (int c = 0; c <= maxChar; c++) {
+            if (seen[c]) {
+                charCodes[c] = alphabetSize++;
+            }
+        }
+        alphabet = new char[alphabetSize];
+        for (int c = 0; c <= maxChar; c++) {
+            if (seen[c]) {
+                alphabet[charCodes[c]] = (char) c;
+            }
+        }
+
+        int[] transitions = new int[Math.max(alphabetSize, 1) * 64];
+        boolean[] finalStates = new boolean[64];
+        int stateCount = 1, size = 0;
+        for (String word : words) {
+            int state = 0;
+            for (int i = 0; i < word.length(); i++) {
+                int j = state * alphabetSize + charCodes[word.charAt(i)];
+                if (transitions[j] == 0) {
+                    if (stateCount == finalStates.length) {
+                        transitions = Arrays.copyOf(transitions, transitions.length * 2);
+                        finalStates = Arrays.copyOf(finalStates, finalStates.length * 2);
+                    }
+
+                    transitions[j] = stateCount++;
+                }
+
+                state = transitions[j];
+            }
+
+            if (!finalStates[state]) {
+                finalStates[state] = true;
+                size++;
+            }
+        }
+
+        this.transitions = Arrays.copyOf(transitions, stateCount * alphabetSize);
+        this.finalStates = Arrays.copyOf(finalStates, stateCount);
+        this.size = size;
+    }
+
+    public static StopWordMatcher load(String fileName) throws IOException {
+        ArrayList<String> wordList = new ArrayList<>();
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(fileName))) {
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                wordList.add(line);
+            }
+        }
+
+        return new StopWordMatcher(wordList);
+    }
+
+    public boolean contains(char[] chars, int offset, int length) {
+        int alphabetSize = alphabet.length,
+                state = 0;
+        for (int i = offset; i < offset + length; i++) {
+            char c = chars[i];
+            if (c >= charCodes.length || charCodes[c] < 0) {
+                return false;
+            }
+
+            state = transitions[state * alphabetSize + charCodes[c]];
+            if (state == 0) {
+                return false;
+            }
+        }
+
+        return finalStates[state];
+    }
+
+    public boolean contains(CharSequence word) {
+        int alphabetSize = alphabet.length,
+                state = 0;
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c >= charCodes.length || charCodes[c] < 0) {
+                return false;
+            }
+
+            state = transitions[state * alphabetSize + charCodes[c]];
+            if (state == 0) {
+                return false;
+            }
+        }
+
+        return finalStates[state];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void print() {
+        System.out.println("\\0");
+
+        print(0, 1, new char[finalStates.length]);
+    }
+
+    private void print(int state, int level, char[] chars) {
+        for (int i = 0; i < alphabet.length; i++) {
+            int childState = transitions[state * alphabet.length + i];
+            if (childState == 0) {
+                continue;
+            }
+
+            chars[level - 1] = alphabet[i];
+
+            System.out.format("%" + level + "s", "");
+            System.out.print(alphabet[i]);
+            if (finalStates[childState]) {
+                System.out.print(" -> " + new String(chars, 0, level));
+            }
+            System.out.println("");
+
+            print(childState, level + 1, chars);
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.manojkhannakm.textmining.util;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Term to dense id dictionary
+ * <p>
+ * Assigns ids 0, 1, 2, ... to terms in the order they are first added, so an id can index a matrix row directly
+ * and a lookup is one hash probe instead of a scan of the vocabulary. Once frozen, {@link #add(String)} stops
+ * growing the dictionary and returns -1 for unknown terms, like {@link #get(String)}, so the same dictionary can
+ * be used to build a model and to fold queries into it. Dictionaries can be saved to and loaded from a file.
+ *
+ * @author Manoj Khanna
+ */
+
+public final class TermDictionary {
+
+    private HashMap<String, Integer> idMap;
+    private ArrayList<String> termList;
+    private boolean frozen;
+
+    public TermDictionary() {
+        this(1024);
+    }
+
+    public TermDictionary(int capacity) {
+        idMap = new HashMap<>(capacity * 2);
+        termList = new ArrayList<>(capacity);
+    }
+
+    public static TermDictionary load(String fileName) throws IOException {
+        try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)))) {
+            return read(inputStream);
+        }
+    }
+
+    public static TermDictionary read(DataInput input) throws IOException {
+        int size = input.readInt();
+        TermDictionary termDictionary = new TermDictionary(size);
+        for (int i = 0; i < size; i++) {
+            termDictionary.add(input.readUTF());
+        }
+        termDictionary.frozen = input.readBoolean();
+        return termDictionary;
+    }
+
+    public int add(String term) {
+        Integer id = idMap.get(term);
+        if (id != null) {
+            return id;
+        }
+
+        if (frozen) {
+            return -1;
+        }
+
+        id = termList.size();
+        idMap.put(term, id);
+        termList.add(term);
+        return id;
+    }
+
+    public int get(String term) {
+        Integer id = idMap.get(term);
+        return id != null ? id : -1;
+    }
+
+    public String getTerm(int id) {
+        return termList.get(id);
+    }
+
+    public List<String> getTermList() {
+        return Collections.unmodifiableList(termList);
+    }
+
+    public int[] sortedIds() {
+        Integer[] ids = new Integer[termList.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i;
+        }
+        Arrays.sort(ids, (i, j) -> termList.get(i).compareTo(termList.get(j)));
+
+        int[] sortedIds = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            sortedIds[i] = ids[i];
+        }
+        return sortedIds;
+    }
+
+    public TermDictionary freeze() {
+        frozen = true;
+        return this;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    public int size() {
+        return termList.size();
+    }
+
+    public void save(String fileName) throws IOException {
+        try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)))) {
+            write(outputStream);
+        }
+    }
+
+    public void write(DataOutput output) throws IOException {
+        output.writeInt(termList.size());
+        for (String term : termList) {
+            output.writeUTF(term);
+        }
+        output.writeBoolean(frozen);
+    }
+
+}
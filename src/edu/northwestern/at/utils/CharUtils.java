@@ -26,6 +26,32 @@ public class CharUtils
 	protected static Set<Integer> symbolSet			=
 		SetFactory.createNewSet();
 
+	/**	Character class flags stored in charClasses. */
+
+	protected static final byte LETTER			= 0x01;
+	protected static final byte DIGIT			= 0x02;
+	protected static final byte PUNCTUATION		= 0x04;
+	protected static final byte SYMBOL			= 0x08;
+	protected static final byte DASH			= 0x10;
+	protected static final byte SINGLE_QUOTE	= 0x20;
+	protected static final byte WHITESPACE		= 0x40;
+	protected static final byte VOWEL			= (byte)0x80;
+
+	/**	Character class flags for every character in the Basic
+	 *	Multilingual Plane.
+	 *
+	 *	<p>
+	 *	Built once by the static initializer from the same tests the
+	 *	classification methods used to run on every call, so that
+	 *	each isX( char ) method is a single array load.  Supplementary
+	 *	code points are classified on the fly by the isX( int )
+	 *	methods.  Changes made to punctuationSet or symbolSet after
+	 *	class initialization are not reflected in the table.
+	 *	</p>
+	 */
+
+	protected static final byte[] charClasses	= new byte[ 65536 ];
+
 	/**	Left single curly quote. */
 
 	public static final char LSQUOTE	= '\u2018';
@@ -188,38 +214,33 @@ public class CharUtils
 	public static String ordinalNumberPattern	=
 		"[0-9][0-9,]*(th|TH|st|ST|nd|ND|rd|RD)";
 
-	/**	Pattern for 1 or more hyphens. */
+	/**	Pattern for 1 or more hyphens.
+	 *
+	 *	<p>
+	 *	This and the following hyphen and asterisk patterns document
+	 *	what the corresponding methods accept.  The methods scan the
+	 *	characters directly and do not use the patterns.
+	 *	</p>
+	 */
 
 	protected final static Pattern hyphenPattern	=
 		Pattern.compile( "^([-\u2011]{1,})$" );
 
-	protected final static Matcher hyphenMatcher	=
-		hyphenPattern.matcher( "" );
-
 	/**	Pattern for 1 or more asterisks. */
 
 	protected final static Pattern asteriskPattern	=
 		Pattern.compile( "^(\\*{1,})$" );
 
-	protected final static Matcher asteriskMatcher	=
-		asteriskPattern.matcher( "" );
-
 	/**	Pattern for 1 or more asterisks followed by 's. */
 
 	protected final static Pattern possessiveAsteriskPattern	=
 		Pattern.compile( "^(\\*{1,})'(s|S)$" );
 
-	protected final static Matcher possessiveAsteriskMatcher	=
-		possessiveAsteriskPattern.matcher( "" );
-
 	/**	Pattern for 2 or more dashes followed by 's. */
 
 	protected final static Pattern possessiveDashesPattern	=
 		Pattern.compile( "^([-\u2011]{2,})'(s|S)$" );
 
-	protected final static Matcher possessiveDashesMatcher	=
-		possessiveDashesPattern.matcher( "" );
-
 	/**	Pattern for Unicode word. */
 
 	protected final static Pattern wordPattern		=
@@ -228,8 +249,16 @@ public class CharUtils
 			"([\\w]+|([\\w]+-[\\w]+)+|[\\w]*'[\\w]*)"
 		);
 
-	protected final static Matcher wordMatcher	=
-		wordPattern.matcher( "" );
+	/**	Matcher for Unicode word, one per thread.
+	 *
+	 *	<p>
+	 *	A Matcher is not thread safe, so sharing one between
+	 *	threads would let concurrent calls corrupt each other.
+	 *	</p>
+	 */
+
+	protected final static ThreadLocal<Matcher> wordMatcher	=
+		ThreadLocal.withInitial( () -> wordPattern.matcher( "" ) );
 
 	/**	Check if character is a letter.
 	 *
@@ -240,7 +269,19 @@ public class CharUtils
 
 	public static boolean isLetter( char c )
 	{
-		return Character.isLetter( c );
+		return ( charClasses[ c ] & LETTER ) != 0;
+	}
+
+	/**	Check if code point is a letter.
+	 *
+	 *	@param	codePoint	Code point to test.
+	 *
+	 *	@return				true if code point is a letter.
+	 */
+
+	public static boolean isLetter( int codePoint )
+	{
+		return ( classesOf( codePoint ) & LETTER ) != 0;
 	}
 
 	/**	Check if string is a single letter.
@@ -266,25 +307,7 @@ public class CharUtils
 
 	public static boolean isLetters( String s )
 	{
-		boolean result	= false;
-
-		if ( s != null )
-		{
-			result	= true;
-
-			String ts	= s.trim();
-
-			for ( int i = 0 ; i < ts.length() ; i++ )
-			{
-				if ( !isLetter( ts.charAt( i ) ) )
-				{
-					result	= false;
-					break;
-				}
-			}
-		}
-
-		return result;
+		return ( s != null ) && allTrimmedHaveClass( s , LETTER );
 	}
 	/**	Check if a string is a word (Unicode letters, digits, hyphen).
 	 *
@@ -299,9 +322,7 @@ public class CharUtils
 
 		if ( ( s != null ) && !s.equals( "'" ) )
 		{
-			wordMatcher.reset( s );
-
-			result	= wordMatcher.matches();
+			result	= wordMatcher.get().reset( s ).matches();
 		}
 
 		return result;
@@ -324,13 +345,15 @@ public class CharUtils
 
 	public static boolean isPunctuation( char ch )
 	{
-		return
-			punctuationSet.contains
-			(
-				new Integer( Character.getType( ch ) )
-			) ||
-			( ch == '`' ) ||
-			( ch == UNKNOWN_PUNC );
+		return ( charClasses[ ch ] & PUNCTUATION ) != 0;
+	}
+
+	/**	True if code point is punctuation.
+	 */
+
+	public static boolean isPunctuation( int codePoint )
+	{
+		return ( classesOf( codePoint ) & PUNCTUATION ) != 0;
 	}
 
 	/**	True if all characters in a string are punctuation.
@@ -343,20 +366,7 @@ public class CharUtils
 
 	public static boolean isPunctuation( String s )
 	{
-		boolean result	= true;
-
-		String ts	= s.trim();
-
-		for ( int i = 0 ; i < ts.length() ; i++ )
-		{
-			if ( !isPunctuation( ts.charAt( i ) ) )
-			{
-				result	= false;
-				break;
-			}
-		}
-
-		return result;
+		return allTrimmedHaveClass( s , PUNCTUATION );
 	}
 
 	/**	True if character is symbol.
@@ -364,8 +374,15 @@ public class CharUtils
 
 	public static boolean isSymbol( char ch )
 	{
-		return
-			symbolSet.contains( new Integer( Character.getType( ch ) ) );
+		return ( charClasses[ ch ] & SYMBOL ) != 0;
+	}
+
+	/**	True if code point is symbol.
+	 */
+
+	public static boolean isSymbol( int codePoint )
+	{
+		return ( classesOf( codePoint ) & SYMBOL ) != 0;
 	}
 
 	/**	True if all characters in a string are symbols.
@@ -377,20 +394,7 @@ public class CharUtils
 
 	public static boolean isSymbol( String s )
 	{
-		boolean result	= true;
-
-		String ts	= s.trim();
-
-		for ( int i = 0 ; i < ts.length() ; i++ )
-		{
-			if ( !isSymbol( ts.charAt( i ) ) )
-			{
-				result	= false;
-				break;
-			}
-		}
-
-		return result;
+		return allTrimmedHaveClass( s , SYMBOL );
 	}
 
 	/**	True if character is punctuation or symbol.
@@ -402,7 +406,7 @@ public class CharUtils
 
 	public static boolean isPunctuationOrSymbol( char c )
 	{
-		return isPunctuation( c ) || isSymbol( c );
+		return ( charClasses[ c ] & ( PUNCTUATION | SYMBOL ) ) != 0;
 	}
 
 	/**	True if all characters in a string are punctuation or symbols.
@@ -414,20 +418,7 @@ public class CharUtils
 
 	public static boolean isPunctuationOrSymbol( String s )
 	{
-		boolean result	= true;
-
-		String ts	= s.trim();
-
-		for ( int i = 0 ; i < ts.length() ; i++ )
-		{
-			if ( !isPunctuationOrSymbol( ts.charAt( i ) ) )
-			{
-				result	= false;
-				break;
-			}
-		}
-
-		return result;
+		return allTrimmedHaveClass( s , (byte)( PUNCTUATION | SYMBOL ) );
 	}
 
 	/**	True if character is a digit.
@@ -439,7 +430,19 @@ public class CharUtils
 
 	public static boolean isDigit( char c )
 	{
-		return Character.isDigit( c );
+		return ( charClasses[ c ] & DIGIT ) != 0;
+	}
+
+	/**	True if code point is a digit.
+	 *
+	 *	@param	codePoint	Code point to check for being a digit.
+	 *
+	 *	@return				true if code point is a digit.
+	 */
+
+	public static boolean isDigit( int codePoint )
+	{
+		return ( classesOf( codePoint ) & DIGIT ) != 0;
 	}
 
 	/**	True if all characters in a string are digits.
@@ -505,8 +508,7 @@ public class CharUtils
 
 	public static boolean isDash( char c )
 	{
-		return
-			Character.getType( c ) == Character.DASH_PUNCTUATION;
+		return ( charClasses[ c ] & DASH ) != 0;
 	}
 
 	/**	True if character is a breaking dash of some kind.
@@ -534,9 +536,7 @@ public class CharUtils
 
 		for ( int i = 0 ; i < s.length() ; i++ )
 		{
-			result	=
-				( Character.getType( s.charAt( i ) ) ==
-					Character.DASH_PUNCTUATION );
+			result	= isDash( s.charAt( i ) );
 
 			if ( result ) break;
 		}
@@ -557,8 +557,7 @@ public class CharUtils
 
 		for ( int i = 0 ; i < s.length() ; i++ )
 		{
-			if (	Character.getType( s.charAt( i ) ) !=
-					Character.DASH_PUNCTUATION )
+			if ( !isDash( s.charAt( i ) ) )
 			{
 				result.append( s.charAt( i ) );
 			}
@@ -884,12 +883,7 @@ public class CharUtils
 
 	public static boolean isEnglishVowel( char c )
 	{
-		return
-			( c == 'a' ) ||
-			( c == 'e' ) ||
-			( c == 'i' ) ||
-			( c == 'o' ) ||
-			( c == 'u' );
+		return ( charClasses[ c ] & VOWEL ) != 0;
 	}
 
 	/**	True if character is single quote.
@@ -901,7 +895,7 @@ public class CharUtils
 
 	public static boolean isSingleQuote( char c )
 	{
-		return ( c == '\'' ) || ( c == LSQUOTE ) || ( c == RSQUOTE );
+		return ( charClasses[ c ] & SINGLE_QUOTE ) != 0;
 	}
 
 	/**	True if character is an apostrophe.
@@ -1150,7 +1144,9 @@ public class CharUtils
 
 	public static boolean isAllPeriods( String s )
 	{
-		return s.matches( "^(\\.{1,})$" );
+		return
+			( s.length() > 0 ) &&
+			( countLeading( s , '.' , '.' ) == s.length() );
 	}
 
 	/**	True if string is all hyphens.
@@ -1160,11 +1156,11 @@ public class CharUtils
 	 *	@return		True if string is all hyphens.
 	 */
 
-	public synchronized static boolean isAllHyphens( String s )
+	public static boolean isAllHyphens( String s )
 	{
-		hyphenMatcher.reset( s );
-
-		return hyphenMatcher.matches();
+		return
+			( s.length() > 0 ) &&
+			( countLeading( s , '-' , NONBREAKING_HYPHEN ) == s.length() );
 	}
 
 	/**	True if string is all asterisks.
@@ -1174,11 +1170,11 @@ public class CharUtils
 	 *	@return		True if string is all asterisks.
 	 */
 
-	public synchronized static boolean isAllAsterisks( String s )
+	public static boolean isAllAsterisks( String s )
 	{
-		asteriskMatcher.reset( s );
-
-		return asteriskMatcher.matches();
+		return
+			( s.length() > 0 ) &&
+			( countLeading( s , '*' , '*' ) == s.length() );
 	}
 
 	/**	True if string is asterisks followed by 's.
@@ -1188,11 +1184,14 @@ public class CharUtils
 	 *	@return		True if string is asterisks followed by 's.
 	 */
 
-	public synchronized static boolean isPossessiveAsterisks( String s )
+	public static boolean isPossessiveAsterisks( String s )
 	{
-		possessiveAsteriskMatcher.reset( s );
+		int l	= s.length();
 
-		return possessiveAsteriskMatcher.matches();
+		return
+			( l >= 3 ) &&
+			( countLeading( s , '*' , '*' ) == ( l - 2 ) ) &&
+			endsWithApostropheS( s );
 	}
 
 	/**	True if string is two or more dashes followed by 's.
@@ -1202,11 +1201,64 @@ public class CharUtils
 	 *	@return		True if string is dashes followed by 's.
 	 */
 
-	public synchronized static boolean isPossessiveDashes( String s )
+	public static boolean isPossessiveDashes( String s )
+	{
+		int l	= s.length();
+
+		return
+			( l >= 4 ) &&
+			( countLeading( s , '-' , NONBREAKING_HYPHEN ) == ( l - 2 ) ) &&
+			endsWithApostropheS( s );
+	}
+
+	/**	Count leading characters of a string which match either
+	 *	of two characters.
+	 *
+	 *	@param	s	String to scan.
+	 *	@param	c1	First character to match.
+	 *	@param	c2	Second character to match.
+	 *
+	 *	@return		Number of leading characters equal to c1 or c2.
+	 *
+	 *	<p>
+	 *	The pattern helpers above are built on this scan instead of
+	 *	shared static Matchers, so they hold no state and need no
+	 *	locking.
+	 *	</p>
+	 */
+
+	protected static int countLeading( String s , char c1 , char c2 )
+	{
+		int l	= s.length();
+		int i	= 0;
+
+		while ( i < l )
+		{
+			char ch	= s.charAt( i );
+
+			if ( ( ch != c1 ) && ( ch != c2 ) ) break;
+
+			i++;
+		}
+
+		return i;
+	}
+
+	/**	True if string ends with an apostrophe followed by s or S.
+	 *
+	 *	@param	s	String to check.
+	 *
+	 *	@return		True if string ends with 's or 'S.
+	 */
+
+	protected static boolean endsWithApostropheS( String s )
 	{
-		possessiveDashesMatcher.reset( s );
+		int l	= s.length();
 
-		return possessiveDashesMatcher.matches();
+		return
+			( l >= 2 ) &&
+			( s.charAt( l - 2 ) == '\'' ) &&
+			( ( s.charAt( l - 1 ) == 's' ) || ( s.charAt( l - 1 ) == 'S' ) );
 	}
 
 	/**	True if character is whitespace.
@@ -1218,7 +1270,19 @@ public class CharUtils
 
 	public static boolean isWhitespace( char c )
 	{
-		return Character.isWhitespace( c );
+		return ( charClasses[ c ] & WHITESPACE ) != 0;
+	}
+
+	/**	True if code point is whitespace.
+	 *
+	 *	@param	codePoint	Code point to check for being whitespace.
+	 *
+	 *	@return				True if code point is whitespace.
+	 */
+
+	public static boolean isWhitespace( int codePoint )
+	{
+		return ( classesOf( codePoint ) & WHITESPACE ) != 0;
 	}
 
 	/**	Make case of string match another string's case.
@@ -1466,6 +1530,123 @@ public class CharUtils
 		return result;
 	}
 
+	/**	Get the character class flags of a code point.
+	 *
+	 *	@param	codePoint	The code point.
+	 *
+	 *	@return				Character class flags, from charClasses
+	 *						for the Basic Multilingual Plane.
+	 */
+
+	protected static byte classesOf( int codePoint )
+	{
+		return
+			( ( codePoint >= 0 ) && ( codePoint < charClasses.length ) ) ?
+				charClasses[ codePoint ] : classify( codePoint );
+	}
+
+	/**	Compute the character class flags of a code point.
+	 *
+	 *	@param	codePoint	The code point.
+	 *
+	 *	@return				Character class flags.
+	 */
+
+	protected static byte classify( int codePoint )
+	{
+		int type	= Character.getType( codePoint );
+		int result	= 0;
+
+		if ( Character.isLetter( codePoint ) )
+		{
+			result	|= LETTER;
+		}
+
+		if ( Character.isDigit( codePoint ) )
+		{
+			result	|= DIGIT;
+		}
+
+		if	(	punctuationSet.contains( type ) ||
+				( codePoint == '`' ) ||
+				( codePoint == UNKNOWN_PUNC )
+			)
+		{
+			result	|= PUNCTUATION;
+		}
+
+		if ( symbolSet.contains( type ) )
+		{
+			result	|= SYMBOL;
+		}
+
+		if ( type == Character.DASH_PUNCTUATION )
+		{
+			result	|= DASH;
+		}
+
+		if	(	( codePoint == '\'' ) ||
+				( codePoint == LSQUOTE ) ||
+				( codePoint == RSQUOTE )
+			)
+		{
+			result	|= SINGLE_QUOTE;
+		}
+
+		if ( Character.isWhitespace( codePoint ) )
+		{
+			result	|= WHITESPACE;
+		}
+
+		switch ( codePoint )
+		{
+			case 'a' :
+			case 'e' :
+			case 'i' :
+			case 'o' :
+			case 'u' :
+				result	|= VOWEL;
+		}
+
+		return (byte)result;
+	}
+
+	/**	True if every character of a trimmed string has any of
+	 *	the given character classes.
+	 *
+	 *	@param	s		String to check.
+	 *	@param	classes	Character class flags.
+	 *
+	 *	@return			true if every character between the first
+	 *					and last non-blank characters has one of
+	 *					the classes.  True for a blank string.
+	 *
+	 *	<p>
+	 *	Trims by index, as String.trim() does, without creating the
+	 *	trimmed string.  The loop has no early exit so that the JIT
+	 *	can unroll and vectorize it.
+	 *	</p>
+	 */
+
+	protected static boolean allTrimmedHaveClass( String s , byte classes )
+	{
+		int start	= 0;
+		int end		= s.length();
+
+		while ( ( start < end ) && ( s.charAt( start ) <= ' ' ) ) start++;
+		while ( ( start < end ) && ( s.charAt( end - 1 ) <= ' ' ) ) end--;
+
+		int missing	= 0;
+
+		for ( int i = start ; i < end ; i++ )
+		{
+			missing	|=
+				( ( charClasses[ s.charAt( i ) ] & classes & 0xff ) - 1 ) >>> 31;
+		}
+
+		return missing == 0;
+	}
+
 	/** Don't allow instantiation, do allow overrides. */
 
 	protected CharUtils()
@@ -1505,6 +1686,11 @@ public class CharUtils
 			new Integer( Character.OTHER_SYMBOL ) ) ;
 		symbolSet.add(
 			new Integer( Character.PRIVATE_USE ) ) ;
+
+		for ( int i = 0 ; i < charClasses.length ; i++ )
+		{
+			charClasses[ i ]	= classify( i );
+		}
 	}
 }
 
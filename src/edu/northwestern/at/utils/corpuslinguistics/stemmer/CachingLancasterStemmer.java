@@ -0,0 +1,490 @@
+package edu.northwestern.at.utils.corpuslinguistics.stemmer;
+
+/*	Please see the license information in LancasterStemmer. */
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**	CachingLancasterStemmer: Lancaster stemmer with a memo cache.
+ *
+ *	<p>
+ *	Natural language text repeats the same few thousand word forms
+ *	over and over, so remembering recent results avoids most calls
+ *	to the rule engine.  The cache holds at most a fixed number of
+ *	words and evicts either the least recently used word (LRU) or
+ *	the first word found without a recent hit (CLOCK).
+ *	</p>
+ *
+ *	<p>
+ *	The cache is split into segments chosen by the hash of the word,
+ *	each guarded by its own lock, so one instance may be shared
+ *	by many threads.  Since this class extends LancasterStemmer,
+ *	it can be used anywhere a LancasterStemmer is used today.
+ *	</p>
+ */
+
+public class CachingLancasterStemmer extends LancasterStemmer
+{
+	/**	Cache eviction policies. */
+
+	public enum EvictionPolicy
+	{
+		LRU ,
+		CLOCK
+	}
+
+	/**	Default maximum number of cached words. */
+
+	public static final int DEFAULT_CAPACITY	= 65536;
+
+	/**	Number of cache segments. */
+
+	protected static final int SEGMENT_COUNT	= 16;
+
+	/*	Cache segments. */
+
+	protected Segment[] segments;
+
+	/*	Maximum number of cached words. */
+
+	protected int capacity;
+
+	/*	Eviction policy. */
+
+	protected EvictionPolicy evictionPolicy;
+
+	/*	Cache statistics. */
+
+	protected LongAdder hitCount		= new LongAdder();
+	protected LongAdder missCount		= new LongAdder();
+	protected LongAdder evictionCount	= new LongAdder();
+
+	/**	Create a caching stemmer using the default stemming rules,
+	 *	default capacity and LRU eviction.
+	 */
+
+	public CachingLancasterStemmer()
+	{
+		this( DEFAULT_CAPACITY , EvictionPolicy.LRU );
+	}
+
+	/**	Create a caching stemmer using the default stemming rules.
+	 *
+	 *	@param	capacity		Maximum number of cached words.
+	 *	@param	evictionPolicy	Eviction policy.
+	 */
+
+	public CachingLancasterStemmer
+	(
+		int capacity ,
+		EvictionPolicy evictionPolicy
+	)
+	{
+		super();
+
+		createSegments( capacity , evictionPolicy );
+	}
+
+	/**	Create a caching stemmer from a string list of rules.
+	 *
+	 *	@param	rules			The stemming rules as an array of String.
+	 *	@param	preStrip		True to remove prefixes from words with
+	 *							more than two characters.
+	 *	@param	capacity		Maximum number of cached words.
+	 *	@param	evictionPolicy	Eviction policy.
+	 */
+
+	public CachingLancasterStemmer
+	(
+		String[] rules ,
+		boolean preStrip ,
+		int capacity ,
+		EvictionPolicy evictionPolicy
+	)
+	{
+		super( rules , preStrip );
+
+		createSegments( capacity , evictionPolicy );
+	}
+
+	/**	Create the cache segments.
+	 *
+	 *	@param	capacity		Maximum number of cached words.
+	 *	@param	evictionPolicy	Eviction policy.
+	 */
+
+	protected void createSegments
+	(
+		int capacity ,
+		EvictionPolicy evictionPolicy
+	)
+	{
+		if ( capacity < 1 )
+		{
+			throw new IllegalArgumentException
+			(
+				"Cache capacity must be positive: " + capacity
+			);
+		}
+
+								//	Spread the capacity over the
+								//	segments, rounding up so that
+								//	every segment holds the same
+								//	number of words.
+
+		int segmentCount	= Math.min( SEGMENT_COUNT , capacity );
+		int segmentCapacity	=
+			( capacity + segmentCount - 1 ) / segmentCount;
+
+		this.capacity		= segmentCapacity * segmentCount;
+		this.evictionPolicy	= evictionPolicy;
+
+		segments	= new Segment[ segmentCount ];
+
+		for ( int i = 0 ; i < segmentCount ; i++ )
+		{
+			segments[ i ]	=
+				( evictionPolicy == EvictionPolicy.LRU ) ?
+					new LruSegment( segmentCapacity ) :
+					new ClockSegment( segmentCapacity );
+		}
+	}
+
+	/**	Stem a specified string.
+	 *
+	 *	@param	s	The string to stem.
+	 *
+	 *	@return		The stemmed string.
+	 */
+
+	public String stem( String s )
+	{
+		return ( s == null ) ? super.stem( s ) : cachedStem( s , null );
+	}
+
+	/**	Stem a string using a scratch buffer.
+	 *
+	 *	@param	s		The string to stem.
+	 *	@param	scratch	Scratch buffer owned by the calling thread.
+	 *
+	 *	@return			The stemmed string.
+	 */
+
+	protected String stem( String s , ScratchBuffer scratch )
+	{
+		return cachedStem( s , scratch );
+	}
+
+	/**	Look up a string in the cache, stemming it on a miss.
+	 *
+	 *	@param	s		The string to stem.
+	 *	@param	scratch	Scratch buffer owned by the calling thread,
+	 *					or null if none.
+	 *
+	 *	@return			The stemmed string.
+	 */
+
+	protected String cachedStem( String s , ScratchBuffer scratch )
+	{
+		int hash		= s.hashCode();
+		Segment segment	=
+			segments[ ( ( hash ^ ( hash >>> 16 ) ) & 0x7fffffff ) %
+				segments.length ];
+
+		String result	= segment.get( s );
+
+		if ( result != null )
+		{
+			hitCount.increment();
+		}
+		else
+		{
+			missCount.increment();
+
+								//	Stem outside the segment lock
+								//	so that other threads are not
+								//	held up by the rule engine.
+
+			result	=
+				( scratch == null ) ?
+					super.stem( s ) : super.stem( s , scratch );
+
+			if ( segment.put( s , result ) )
+			{
+				evictionCount.increment();
+			}
+		}
+
+		return result;
+	}
+
+	/**	Get the maximum number of cached words.
+	 *
+	 *	@return		The capacity, which is the requested capacity
+	 *				rounded up to a multiple of the segment count.
+	 */
+
+	public int getCapacity()
+	{
+		return capacity;
+	}
+
+	/**	Get the eviction policy.
+	 *
+	 *	@return		The eviction policy.
+	 */
+
+	public EvictionPolicy getEvictionPolicy()
+	{
+		return evictionPolicy;
+	}
+
+	/**	Get the number of cache hits.
+	 *
+	 *	@return		Number of calls answered from the cache.
+	 */
+
+	public long getHitCount()
+	{
+		return hitCount.sum();
+	}
+
+	/**	Get the number of cache misses.
+	 *
+	 *	@return		Number of calls which ran the rule engine.
+	 */
+
+	public long getMissCount()
+	{
+		return missCount.sum();
+	}
+
+	/**	Get the number of cache evictions.
+	 *
+	 *	@return		Number of words evicted from the cache.
+	 */
+
+	public long getEvictionCount()
+	{
+		return evictionCount.sum();
+	}
+
+	/**	Get the number of words currently cached.
+	 *
+	 *	@return		Number of cached words.
+	 */
+
+	public int size()
+	{
+		int result	= 0;
+
+		for ( int i = 0 ; i < segments.length ; i++ )
+		{
+			result	+= segments[ i ].size();
+		}
+
+		return result;
+	}
+
+	/**	Remove all cached words.  Statistics are kept.
+	 */
+
+	public void clear()
+	{
+		for ( int i = 0 ; i < segments.length ; i++ )
+		{
+			segments[ i ].clear();
+		}
+	}
+
+	/**	Cache segment. */
+
+	protected interface Segment
+	{
+		/**	Get the cached stem of a word.
+		 *
+		 *	@param	word	The word.
+		 *
+		 *	@return			The cached stem, or null if none.
+		 */
+
+		String get( String word );
+
+		/**	Cache the stem of a word.
+		 *
+		 *	@param	word	The word.
+		 *	@param	stem	The stem.
+		 *
+		 *	@return			true if another word was evicted.
+		 */
+
+		boolean put( String word , String stem );
+
+		/**	Get the number of cached words. */
+
+		int size();
+
+		/**	Remove all cached words. */
+
+		void clear();
+	}
+
+	/**	Cache segment which evicts the least recently used word. */
+
+	protected static class LruSegment implements Segment
+	{
+		protected final int capacity;
+
+		protected final LinkedHashMap<String, String> map;
+
+		protected LruSegment( int capacity )
+		{
+			this.capacity	= capacity;
+
+			map	= new LinkedHashMap<String, String>( 16 , 0.75f , true );
+		}
+
+		public synchronized String get( String word )
+		{
+			return map.get( word );
+		}
+
+		public synchronized boolean put( String word , String stem )
+		{
+			boolean evicted	= false;
+
+			if ( ( map.put( word , stem ) == null ) &&
+				( map.size() > capacity ) )
+			{
+								//	Iteration order is access order,
+								//	so the first entry is the least
+								//	recently used one.
+
+				map.remove( map.keySet().iterator().next() );
+
+				evicted	= true;
+			}
+
+			return evicted;
+		}
+
+		public synchronized int size()
+		{
+			return map.size();
+		}
+
+		public synchronized void clear()
+		{
+			map.clear();
+		}
+	}
+
+	/**	Cache segment which evicts using the CLOCK algorithm.
+	 *
+	 *	<p>
+	 *	Cached words sit in a ring of slots, each with a reference
+	 *	bit that is set on every hit.  To make room, the clock hand
+	 *	sweeps the ring, clearing set bits, and evicts the first word
+	 *	whose bit is already clear.  A hit only sets a flag, which is
+	 *	cheaper than reordering a list as LRU does.
+	 *	</p>
+	 */
+
+	protected static class ClockSegment implements Segment
+	{
+		protected final String[] words;
+
+		protected final String[] stems;
+
+		protected final boolean[] referenced;
+
+		protected final Map<String, Integer> slotMap;
+
+		protected int hand;
+
+		protected int count;
+
+		protected ClockSegment( int capacity )
+		{
+			words		= new String[ capacity ];
+			stems		= new String[ capacity ];
+			referenced	= new boolean[ capacity ];
+			slotMap		= new HashMap<String, Integer>( capacity * 2 );
+		}
+
+		public synchronized String get( String word )
+		{
+			Integer slot	= slotMap.get( word );
+
+			if ( slot == null )
+			{
+				return null;
+			}
+
+			referenced[ slot ]	= true;
+
+			return stems[ slot ];
+		}
+
+		public synchronized boolean put( String word , String stem )
+		{
+			if ( slotMap.containsKey( word ) )
+			{
+				return false;
+			}
+
+			boolean evicted	= false;
+			int slot;
+
+			if ( count < words.length )
+			{
+				slot	= count++;
+			}
+			else
+			{
+				while ( referenced[ hand ] )
+				{
+					referenced[ hand ]	= false;
+					hand				= ( hand + 1 ) % words.length;
+				}
+
+				slot	= hand;
+				hand	= ( hand + 1 ) % words.length;
+
+				slotMap.remove( words[ slot ] );
+
+				evicted	= true;
+			}
+
+			words[ slot ]		= word;
+			stems[ slot ]		= stem;
+			referenced[ slot ]	= false;
+
+			slotMap.put( word , slot );
+
+			return evicted;
+		}
+
+		public synchronized int size()
+		{
+			return count;
+		}
+
+		public synchronized void clear()
+		{
+			for ( int i = 0 ; i < count ; i++ )
+			{
+				words[ i ]		= null;
+				stems[ i ]		= null;
+				referenced[ i ]	= false;
+			}
+
+			slotMap.clear();
+
+			hand	= 0;
+			count	= 0;
+		}
+	}
+}
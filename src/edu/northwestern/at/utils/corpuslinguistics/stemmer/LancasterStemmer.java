@@ -4,7 +4,11 @@ package edu.northwestern.at.utils.corpuslinguistics.stemmer;
 
 import edu.northwestern.at.utils.CharUtils;
 
+import java.util.Spliterator;
 import java.util.Vector;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**	LancasterStemmer: Implements the Lancaster (Paice/Husk) word stemmer.
  *
@@ -210,6 +214,39 @@ public class LancasterStemmer
 
 	protected boolean preStrip;
 
+	/*	Rules compiled into primitive arrays, indexed by rule number.
+	 *
+	 *	<p>
+	 *	ruleLetters holds the final letter each rule applies to.
+	 *	The remaining suffix letters, in the same reversed order as
+	 *	the rule text, and the letters appended by each rule are
+	 *	stored in ruleChars starting at ruleSuffixStarts and
+	 *	ruleAppendStarts respectively.
+	 *	</p>
+	 */
+
+	protected char[] ruleLetters;
+
+	protected char[] ruleChars;
+
+	protected int[] ruleSuffixStarts;
+
+	protected int[] ruleSuffixLengths;
+
+	protected boolean[] ruleIntactOnly;
+
+	protected int[] ruleDeleteCounts;
+
+	protected int[] ruleAppendStarts;
+
+	protected int[] ruleAppendLengths;
+
+	protected boolean[] ruleContinues;
+
+	/*	Largest number of letters a single rule adds to a word. */
+
+	protected int maxRuleGrowth;
+
 	/**	Create a Paice/Husk stemmer using the default stemming rules.
 	 *
 	 *	<p>
@@ -305,6 +342,106 @@ public class LancasterStemmer
 				ruleTableIndex[ charCode( ch ) ] = i;
 			}
 		}
+
+		compileRules();
+	}
+
+	/**	Compiles the rule table into primitive arrays.
+	 *
+	 *	<p>
+	 *	A rule such as "ytic3s." is read as: final letter 'y',
+	 *	further suffix letters "tic" matched backwards from the end
+	 *	of the word, an optional '*' meaning the rule only applies
+	 *	to intact words, the number of letters to delete, the letters
+	 *	to append, and '.' to stop or '>' to continue stemming.
+	 *	</p>
+	 */
+
+	protected void compileRules()
+	{
+		int ruleCount		= ruleTable.size();
+
+		ruleLetters			= new char[ ruleCount ];
+		ruleSuffixStarts	= new int[ ruleCount ];
+		ruleSuffixLengths	= new int[ ruleCount ];
+		ruleIntactOnly		= new boolean[ ruleCount ];
+		ruleDeleteCounts	= new int[ ruleCount ];
+		ruleAppendStarts	= new int[ ruleCount ];
+		ruleAppendLengths	= new int[ ruleCount ];
+		ruleContinues		= new boolean[ ruleCount ];
+		maxRuleGrowth		= 0;
+
+		int charCount	= 0;
+
+		for ( int i = 0 ; i < ruleCount ; i++ )
+		{
+			charCount	+= ruleTable.elementAt( i ).length();
+		}
+
+		ruleChars	= new char[ charCount ];
+		charCount	= 0;
+
+		for ( int i = 0 ; i < ruleCount ; i++ )
+		{
+			String rule	= ruleTable.elementAt( i );
+
+			ruleLetters[ i ]	= rule.charAt( 0 );
+
+								//	Suffix letters up to the intact
+								//	marker or delete count.
+			int pos	= 1;
+
+			ruleSuffixStarts[ i ]	= charCount;
+
+			while	(	( pos < rule.length() ) &&
+						!isDigit( rule.charAt( pos ) ) &&
+						( rule.charAt( pos ) != '*' )
+					)
+			{
+				ruleChars[ charCount++ ]	= rule.charAt( pos++ );
+			}
+
+			ruleSuffixLengths[ i ]	= charCount - ruleSuffixStarts[ i ];
+
+			if ( ( pos < rule.length() ) && ( rule.charAt( pos ) == '*' ) )
+			{
+				ruleIntactOnly[ i ]	= true;
+				pos++;
+			}
+								//	Rules without a delete count
+								//	can never match.
+
+			if ( ( pos >= rule.length() ) || !isDigit( rule.charAt( pos ) ) )
+			{
+				ruleSuffixLengths[ i ]	= Integer.MAX_VALUE;
+				continue;
+			}
+
+			ruleDeleteCounts[ i ]	= rule.charAt( pos++ ) - zeroDigit;
+
+								//	Letters to append.
+
+			ruleAppendStarts[ i ]	= charCount;
+
+			while	(	( pos < rule.length() ) &&
+						isLetter( rule.charAt( pos ) )
+					)
+			{
+				ruleChars[ charCount++ ]	= rule.charAt( pos++ );
+			}
+
+			ruleAppendLengths[ i ]	= charCount - ruleAppendStarts[ i ];
+
+			ruleContinues[ i ]	=
+				( pos < rule.length() ) && ( rule.charAt( pos ) != '.' );
+
+			maxRuleGrowth	=
+				Math.max
+				(
+					maxRuleGrowth ,
+					ruleAppendLengths[ i ] - ruleDeleteCounts[ i ]
+				);
+		}
 	}
 
 	/**	Returns index of first vowel in string.
@@ -332,324 +469,229 @@ public class LancasterStemmer
 		return Math.min( i , last );
 	}
 
-	/**	Strip suffixes from a string.
+	/**	Returns index of first vowel in a character array.
 	 *
-	 *	@param	s	The string from which to remove suffixes.
+	 *	@param	chars	Characters to search for vowel.
+	 *	@param	offset	Index of first character.
+	 *	@param	last	Last position to search for vowel,
+	 *					relative to offset.
 	 *
-	 *	@return		The string with suffixes removed.
+	 *	@return			Zero-based index of first vowel,
+	 *					relative to offset.
 	 */
 
-	protected String stripSuffixes( String s )
+	protected int firstVowel( char[] chars , int offset , int last )
 	{
-								//	Is the current rule OK.
-
-		int ruleOK				= 0;
-
-								//	Are we done stemming a string.
-
-		int done				= 0;
-
-								//	Position of last letter in string.
-
-		int lastLetterPos		= 0;
+		char prevChar	= 'a';
+		int i;
 
-								//	Counter for number of characters
-								//	to be replaced and length of stemmed
-								//	string if rule was applied.
+		for	(	i = 0 ;
+				( i < last ) &&
+					( !( vowel( chars[ offset + i ] , prevChar ) ) ) ;
+				i++
+			)
+		{
+			prevChar	= chars[ offset + i ];
+		}
 
-		int replacedCharCount	= 0;
+		return Math.min( i , last );
+	}
 
-								//	Position of first vowel in string.
+	/**	Strip suffixes from a string.
+	 *
+	 *	@param	s	The string from which to remove suffixes.
+	 *
+	 *	@return		The string with suffixes removed.
+	 */
 
-		int firstVowelPos		= 0;
+	protected String stripSuffixes( String s )
+	{
+								//	Start by cleaning the input string
+								//	of non-letters.
 
-								//	Index into rule table.
+		String sLower	= s.toLowerCase();
+		char[] chars	= new char[ sLower.length() + maxRuleGrowth ];
+		int length;
 
-		int currentRuleIndex	= 0;
+		while ( true )
+		{
+			sLower.getChars( 0 , sLower.length() , chars , 0 );
 
-								//	Index of current rule.
+			length	=
+				stripSuffixes
+				(
+					chars ,
+					0 ,
+					removeNonLetters( chars , 0 , sLower.length() ) ,
+					chars.length
+				);
 
-		int ruleCharPos			= 0;
+			if ( length >= 0 ) break;
 
-								//	Index of word.
+								//	A rule which lengthens the word ran
+								//	out of room.  Start again with a
+								//	bigger buffer.
 
-		int wordCharPos			= 0;
+			chars	= new char[ chars.length * 2 ];
+		}
 
-								//	Last letter in string.
+		return new String( chars , 0 , length );
+	}
 
-		char lastLetter			= 0;
+	/**	Strip suffixes from a cleaned, lower case word in place.
+	 *
+	 *	@param	chars		Array holding the word.
+	 *	@param	offset		Index of first character of the word.
+	 *	@param	length		Length of the word, which must contain
+	 *						only lower case letters.
+	 *	@param	capacity	Number of characters from offset which
+	 *						may be written.
+	 *
+	 *	@return				Length of the stemmed word, which starts
+	 *						at offset, or -1 if a rule needed to append
+	 *						letters past the capacity.
+	 */
 
-								//	Holds current stemming rule.
+	protected int stripSuffixes
+	(
+		char[] chars ,
+		int offset ,
+		int length ,
+		int capacity
+	)
+	{
+								//	Position of last letter in word.
 
-		String rule				= "";
+		int lastLetterPos	= length - 1;
 
-								//	True if the input string has not yet
+								//	True if the word has not yet
 								//	been stemmed.
 
-		boolean intact			= true;
-
-								//	"stem" contains the stemmed input
-								//	string in as the stemming process
-								//	proceeds.
-								//
-								//	Start by cleaning the input string
-								//	of non-letters.
-
-		String stem				= clean( s.toLowerCase() );
+		boolean intact		= true;
 
-								//	Set lastLetterPos to the index of the
-								//	last letter in the string.  Normally
-								//	we will have removed all non-letters
-								//	from the string before we get here,
-								//	so usually posLastletter will just be
-								//	one less than the length of the string.
+								//	Words of less than two letters
+								//	are not stemmed.
 
-		lastLetterPos		= 0;
-
-		while ( ( ( lastLetterPos + 1 ) < stem.length() ) &&
-				isLetter( stem.charAt( lastLetterPos + 1 ) ) )
+		if ( lastLetterPos < 1 )
 		{
-			lastLetterPos++;
+			return length;
 		}
+								//	Find position of first vowel in word.
+
+		int firstVowelPos	= firstVowel( chars , offset , lastLetterPos );
 
-		if ( lastLetterPos < 1 )
-		{
-			done = -1;
-        }
-        else
-								//	Find position of first vowel in string.
-     	{
-			firstVowelPos	= firstVowel( stem , lastLetterPos );
-			wordCharPos		= stem.length() - 1;
-        }
 								//	Repeat rule processing until
 								//	no more rules apply, i.e.,
 								//	stemming is complete.
-
-		while ( done != -1 )
+		while ( true )
 		{
-								//	Look for rule for new final letter.
-			done		= 0;
-								//	Get last letter in string.
-
-			lastLetter	= stem.charAt( lastLetterPos );
-
 								//	Are there are any possible rules
-								//	for stemming for this letter?
+								//	for stemming the last letter?
 
-			if	(	isLetter( lastLetter ) &&
-					( lastLetter >= 'a' ) &&
-					( lastLetter <= 'z' )
+			char lastLetter	= chars[ offset + lastLetterPos ];
+
+			if	(	!isLetter( lastLetter ) ||
+					( lastLetter < 'a' ) ||
+					( lastLetter > 'z' )
 				)
 			{
-				currentRuleIndex = ruleTableIndex[ charCode( lastLetter ) ];
-			}
-			else
-			{
-				currentRuleIndex = -1;
+				break;
 			}
-								//	No rule available -- stemming done.
 
-			if ( currentRuleIndex == -1 )
-			{
-				done = -1;
-			    continue;
-			}
-								//	Pick up first pontentially matching
-								//	rule.
+			int rule		= ruleTableIndex[ charCode( lastLetter ) ];
+			boolean applied	= false;
 
-			rule	= (String)ruleTable.elementAt( currentRuleIndex );
+								//	Try each rule for the last letter
+								//	until one is acceptable.
 
-			while ( done == 0 )
+			for	(	;
+					( rule < ruleLetters.length ) &&
+						( ruleLetters[ rule ] == lastLetter ) ;
+					rule++
+				)
 			{
-				ruleOK	= 0;
+								//	Every matched suffix letter must
+								//	lie after the first vowel.
 
-				if ( rule.charAt( 0 ) != lastLetter )
-				{
-								//	Rule letter changed.  We're done
-								//	with this letter.
+				int suffixLength	= ruleSuffixLengths[ rule ];
 
-					done	= -1;
-					ruleOK	= -1;
+				if ( lastLetterPos - suffixLength <= firstVowelPos )
+				{
+					if ( suffixLength > 0 ) continue;
 				}
-								//	Index in rule: second character.
-
-				ruleCharPos	= 1;
-
-								//	Index in stemmed string:
-								//	next to last letter.
 
-				wordCharPos	= lastLetterPos - 1;
+				int suffixStart	= ruleSuffixStarts[ rule ];
+				int i			= 0;
 
-								//	Loop over rules and try to find
-								//	a rule that is acceptable.
-
-				while ( ruleOK == 0 )
+				while	(	( i < suffixLength ) &&
+							( ruleChars[ suffixStart + i ] ==
+								chars[ offset + lastLetterPos - 1 - i ] )
+						)
 				{
-								//	Is rule fully matched?
-
-					if ( isDigit( rule.charAt( ruleCharPos ) ) )
-					{
-						ruleOK	= 1;
-					}
-					else if ( rule.charAt( ruleCharPos ) == '*' )
-					{
-								//	Match only if word intact.
-
-						if ( intact )
-						{
- 								//	Move forwards in rule.
-
-							ruleCharPos++;
-							ruleOK	= 1;
-						}
-						else
-						{
-							ruleOK = -1;
-						}
-					}
-								//	Mismatch of letters.
-
-					else if (	rule.charAt( ruleCharPos ) !=
-								stem.charAt( wordCharPos ) )
-					{
-						ruleOK = -1;
-					}
-								//	Insufficient stem remaining.
-
-					else if ( wordCharPos <= firstVowelPos )
-					{
-						ruleOK = -1;
-					}
-								//	Compare next pair of letters.
-								//	Move forwards in rule and
-								//	backwards in string.
-					else
-					{
-						ruleCharPos++;
-						wordCharPos--;
-					}
+					i++;
 				}
-								//	If the rule that has just been checked
-								//	is valid for the current stem value,
-								//	check the acceptability conditions
-								//	for the current stem value.
 
-				if ( ruleOK == 1 )
-				{
-								//	Count replacement letters.
-
-					replacedCharCount	= 0;
-
-					while
-					(
-						!( 	( rule.charAt(
-								ruleCharPos + replacedCharCount + 1 ) >=
-									'.' ) &&
-							( rule.charAt(
-								ruleCharPos + replacedCharCount + 1 ) <=
-									'>' )
-						)
-					)
-					{
-						replacedCharCount++;
-					}
+				if ( i < suffixLength ) continue;
 
-					replacedCharCount	=
-						lastLetterPos + replacedCharCount + zeroDigit -
-						( (int)( rule.charAt( ruleCharPos ) ) );
+								//	Match only if word intact.
 
-								//	Position of last letter if rule used.
+				if ( ruleIntactOnly[ rule ] && !intact ) continue;
 
-					if ( firstVowelPos == 0 )
-					{
-								//	If word starts with vowel...
+								//	Position of last letter if rule used.
 
-						if ( replacedCharCount < 1 )
-						{
-								//	... minimal stem is 2 letters.
+				int newLastLetterPos	=
+					lastLetterPos + ruleAppendLengths[ rule ] -
+					ruleDeleteCounts[ rule ];
 
-							ruleOK	= -1;
-						}
-					}
+								//	If word starts with vowel,
+								//	minimal stem is 2 letters.
 								//	If word starts with a consonant,
 								//	minimal stem is 3 letters
 								//	including one or more vowels.
 
-					else if (	( replacedCharCount < 2 ) ||
-								( replacedCharCount < firstVowelPos ) )
-					{
-						ruleOK = -1;
-					}
+				if ( firstVowelPos == 0 )
+				{
+					if ( newLastLetterPos < 1 ) continue;
 				}
-								//	If using rule passes the assertion
-								//	tests, apply the matching rule.
-
-				if ( ruleOK == 1 )
+				else if	(	( newLastLetterPos < 2 ) ||
+							( newLastLetterPos < firstVowelPos )
+						)
 				{
-								//	Input string is no longer intact.
-
-					intact	= false;
-
-								//	Move end of string marker to position
-								//	given by the numeral in the rule.
-
-					lastLetterPos	=
-						lastLetterPos + zeroDigit -
-						((int)( rule.charAt( ruleCharPos ) ) );
-
-					ruleCharPos++;
-
-					stem	= stem.substring( 0 , ( lastLetterPos + 1 ) );
-
-								//	Append any letters following numeral
-								//	to the string.
-					while
-					(
-						( ruleCharPos < rule.length() ) &&
-						isLetter( rule.charAt( ruleCharPos ) )
-					)
-					{
-						stem	+= rule.charAt( ruleCharPos );
-
-						ruleCharPos++;
-						lastLetterPos++;
-					}
-								//	Rule ends with '.'.  We're done.
-
-					if ( ( rule.charAt( ruleCharPos ) ) == '.' )
-					{
-						done = -1;
-					}
-					else
-					{
-							//	Here if rule ends with '>'.  Continue.
-
-						done = 1;
-					}
+					continue;
 				}
-				else
+								//	Apply the rule.  Delete letters
+								//	from the end of the word and append
+								//	any replacement letters.
+
+				if ( newLastLetterPos >= capacity )
 				{
-								//	Rule did not match.
-								//	Try next rule in rule table.
+					return -1;
+				}
 
-					currentRuleIndex++;
+				intact			= false;
+				lastLetterPos	-= ruleDeleteCounts[ rule ];
 
-					rule	=
-						(String)ruleTable.elementAt( currentRuleIndex );
+				System.arraycopy
+				(
+					ruleChars ,
+					ruleAppendStarts[ rule ] ,
+					chars ,
+					offset + lastLetterPos + 1 ,
+					ruleAppendLengths[ rule ]
+				);
 
-								//	When the initial letter changes,
-								//	there are no more rules to try.
+				lastLetterPos	= newLastLetterPos;
+				applied			= true;
 
-					if ( rule.charAt( 0 ) != lastLetter )
-					{
-						done = -1;
-					}
-				}
+				break;
 			}
+								//	Stop when no rule applied or
+								//	the rule ends with '.'.
+
+			if ( !applied || !ruleContinues[ rule ] ) break;
 		}
 
-		return stem;
+		return lastLetterPos + 1;
 	}
 
 	/**	Determine if character is a vowel or not.
@@ -766,6 +808,149 @@ public class LancasterStemmer
 		return result.toString();
 	}
 
+	/**	Remove non-letters from a character array in place.
+	 *
+	 *	@param	chars	Array holding the word.
+	 *	@param	offset	Index of first character of the word.
+	 *	@param	length	Length of the word.
+	 *
+	 *	@return			Length of the word with non-letters removed.
+	 */
+
+	protected int removeNonLetters( char[] chars , int offset , int length )
+	{
+		int result	= 0;
+
+		for ( int i = 0 ; i < length ; i++ )
+		{
+			char ch	= chars[ offset + i ];
+
+			if ( isLetter( ch ) )
+			{
+				chars[ offset + result++ ]	= ch;
+			}
+		}
+
+		return result;
+	}
+
+	/**	Removes a prefix from a character array in place.
+	 *
+	 *	@param	chars	Array holding the word.
+	 *	@param	offset	Index of first character of the word.
+	 *	@param	length	Length of the word.
+	 *
+	 *	@return			Length of the word with any prefix removed.
+	 */
+
+	protected int stripPrefixes( char[] chars , int offset , int length )
+	{
+		for ( int i = 0 ; i < prefixes.length ; i++ )
+		{
+			String prefix	= prefixes[ i ];
+			int j			= 0;
+
+			if ( length <= prefix.length() ) continue;
+
+			while	(	( j < prefix.length() ) &&
+						( Character.toLowerCase( chars[ offset + j ] ) ==
+							prefix.charAt( j ) )
+					)
+			{
+				j++;
+			}
+
+			if ( j == prefix.length() )
+			{
+				System.arraycopy
+				(
+					chars ,
+					offset + j ,
+					chars ,
+					offset ,
+					length - j
+				);
+
+				return length - j;
+			}
+		}
+
+		return length;
+	}
+
+	/**	Stem a word held in a character array, in place.
+	 *
+	 *	@param	chars	Array holding the word.
+	 *	@param	offset	Index of first character of the word.
+	 *	@param	length	Length of the word.
+	 *
+	 *	@return			Length of the stemmed word, which starts at
+	 *					offset, or -1 if a rule needed to append
+	 *					letters past the end of the array.
+	 *
+	 *	<p>
+	 *	No objects are allocated, so this is the method to use for
+	 *	large token streams.  The result matches {@link #stem(String)}
+	 *	for every word whose lower case form has the same length,
+	 *	which is every word outside a handful of special Unicode
+	 *	characters.  The default rules never lengthen a word, so
+	 *	-1 is only possible with custom rules.
+	 *	</p>
+	 */
+
+	public int stem( char[] chars , int offset , int length )
+	{
+		return stem( chars , offset , length , chars.length - offset );
+	}
+
+	/**	Stem a word held in a character array, in place.
+	 *
+	 *	@param	chars		Array holding the word.
+	 *	@param	offset		Index of first character of the word.
+	 *	@param	length		Length of the word.
+	 *	@param	capacity	Number of characters from offset which
+	 *						may be written.
+	 *
+	 *	@return				Length of the stemmed word, which starts at
+	 *						offset, or -1 if a rule needed to append
+	 *						letters past the capacity.
+	 */
+
+	public int stem( char[] chars , int offset , int length , int capacity )
+	{
+		int result	= length;
+
+								//	Remove prefixes if the word
+								//	is longer than three characters and
+								//	prefix stripping was requested.
+
+		if ( ( result > 3 ) && preStrip )
+		{
+			result	= stripPrefixes( chars , offset , result );
+		}
+								//	Remove suffixes if the word
+								//	is longer than three characters.
+
+		if ( result > 3 )
+		{
+			for ( int i = offset ; i < offset + result ; i++ )
+			{
+				chars[ i ]	= Character.toLowerCase( chars[ i ] );
+			}
+
+			result	=
+				stripSuffixes
+				(
+					chars ,
+					offset ,
+					removeNonLetters( chars , offset , result ) ,
+					capacity
+				);
+		}
+
+		return result;
+	}
+
 	/**	Stem a specified string.
 	 *
 	 *	@param	s	The string to stem.
@@ -797,4 +982,220 @@ public class LancasterStemmer
 
 		return result;
 	}
+
+	/**	Stem a string using a scratch buffer.
+	 *
+	 *	@param	s		The string to stem.
+	 *	@param	scratch	Scratch buffer owned by the calling thread.
+	 *
+	 *	@return			The stemmed string.
+	 *
+	 *	<p>
+	 *	ASCII words are stemmed in the scratch buffer, so the only
+	 *	object allocated is the result.  Other words go through
+	 *	{@link #stem(String)} so that the result is always the same.
+	 *	</p>
+	 */
+
+	protected String stem( String s , ScratchBuffer scratch )
+	{
+		int length	= s.length();
+
+		if ( length <= 3 )
+		{
+			return s;
+		}
+
+		for ( int i = 0 ; i < length ; i++ )
+		{
+			if ( s.charAt( i ) >= 0x80 )
+			{
+				return stem( s );
+			}
+		}
+
+		char[] chars	= scratch.get( length + maxRuleGrowth );
+
+		s.getChars( 0 , length , chars , 0 );
+
+		int result	= stem( chars , 0 , length , chars.length );
+
+		return ( result < 0 ) ? stem( s ) : new String( chars , 0 , result );
+	}
+
+	/**	Stem an array of strings.
+	 *
+	 *	@param	in		The strings to stem.
+	 *	@param	out		Receives the stemmed strings.  May be the
+	 *					same array as "in".
+	 *
+	 *	<p>
+	 *	One scratch buffer is shared by the whole batch instead of
+	 *	allocating working storage for every word.
+	 *	</p>
+	 */
+
+	public void stemAll( String[] in , String[] out )
+	{
+		if ( out.length < in.length )
+		{
+			throw new IllegalArgumentException
+			(
+				"Output array is shorter than input array: " +
+				out.length + " < " + in.length
+			);
+		}
+
+		ScratchBuffer scratch	= new ScratchBuffer();
+
+		for ( int i = 0 ; i < in.length ; i++ )
+		{
+			out[ i ]	= stem( in[ i ] , scratch );
+		}
+	}
+
+	/**	Stem tokens held in a character buffer, in place.
+	 *
+	 *	@param	chars		Buffer holding the tokens.
+	 *	@param	offsets		Index of the first character of each token.
+	 *	@param	lengths		Length of each token.  Receives the length
+	 *						of each stemmed token, or -1 if a rule
+	 *						needed to lengthen the token beyond its
+	 *						original length.
+	 *	@param	count		Number of tokens.
+	 *
+	 *	<p>
+	 *	Each stemmed token starts at its original offset.  A token
+	 *	is never allowed to grow into its neighbour, which only
+	 *	matters for custom rules since the default rules never
+	 *	lengthen a word.
+	 *	</p>
+	 */
+
+	public void stemAll( char[] chars , int[] offsets , int[] lengths , int count )
+	{
+		for ( int i = 0 ; i < count ; i++ )
+		{
+			lengths[ i ]	=
+				stem( chars , offsets[ i ] , lengths[ i ] , lengths[ i ] );
+		}
+	}
+
+	/**	Stem a stream of strings.
+	 *
+	 *	@param	words	The strings to stem.
+	 *
+	 *	@return			Stream of stemmed strings, in the same order.
+	 *
+	 *	<p>
+	 *	The result is parallel if "words" is parallel.  Every split
+	 *	of the stream gets its own scratch buffer, so workers share
+	 *	nothing but the compiled rules.
+	 *	</p>
+	 */
+
+	public Stream<String> stemAll( Stream<String> words )
+	{
+		return
+			StreamSupport.stream
+			(
+				spliterator( words.spliterator() ) ,
+				words.isParallel()
+			).onClose( words::close );
+	}
+
+	/**	Wrap a spliterator of strings with one of stemmed strings.
+	 *
+	 *	@param	words	The strings to stem.
+	 *
+	 *	@return			Spliterator of stemmed strings.
+	 */
+
+	public Spliterator<String> spliterator( Spliterator<String> words )
+	{
+		return new StemSpliterator( words );
+	}
+
+	/**	Growable scratch buffer for stemming strings.
+	 *
+	 *	<p>
+	 *	A scratch buffer must only be used by one thread at a time.
+	 *	</p>
+	 */
+
+	protected static class ScratchBuffer
+	{
+		protected char[] chars	= new char[ 32 ];
+
+		/**	Get the buffer.
+		 *
+		 *	@param	length	Minimum length.
+		 *
+		 *	@return			Buffer of at least "length" characters.
+		 */
+
+		protected char[] get( int length )
+		{
+			if ( chars.length < length )
+			{
+				chars	= new char[ Math.max( length , chars.length * 2 ) ];
+			}
+
+			return chars;
+		}
+	}
+
+	/**	Spliterator which stems the strings of another spliterator. */
+
+	protected class StemSpliterator implements Spliterator<String>
+	{
+		protected final Spliterator<String> words;
+
+		protected final ScratchBuffer scratch	= new ScratchBuffer();
+
+		protected StemSpliterator( Spliterator<String> words )
+		{
+			this.words	= words;
+		}
+
+		public boolean tryAdvance( Consumer<? super String> action )
+		{
+			return
+				words.tryAdvance
+				(
+					word -> action.accept( stem( word , scratch ) )
+				);
+		}
+
+		public void forEachRemaining( Consumer<? super String> action )
+		{
+			words.forEachRemaining
+			(
+				word -> action.accept( stem( word , scratch ) )
+			);
+		}
+
+		public Spliterator<String> trySplit()
+		{
+			Spliterator<String> split	= words.trySplit();
+
+			return ( split == null ) ? null : new StemSpliterator( split );
+		}
+
+		public long estimateSize()
+		{
+			return words.estimateSize();
+		}
+
+		public int characteristics()
+		{
+								//	Stemming may map different words
+								//	to the same stem and changes the
+								//	sort order.
+
+			return
+				words.characteristics() &
+				~( Spliterator.DISTINCT | Spliterator.SORTED );
+		}
+	}
 }